@@ -0,0 +1,1044 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.util.Arrays;
+
+/**
+ * Posició d'Oust representada amb bitboards.
+ *
+ * <p>Cada color es guarda com un vector de paraules de 64 bits indexat per
+ * l'índex dens de {@link HexTopology} (2 paraules per al tauler de costat 7,
+ * amb 127 caselles; més paraules per a mides més grans). Implementa les
+ * mateixes regles que {@code GameStatus.placeStone}:</p>
+ * <ul>
+ *   <li>Una pedra sense veïns propis és un moviment no-captura i passa el torn</li>
+ *   <li>Una pedra amb veïns propis fusiona els grups propis adjacents; és legal
+ *       només si toca algun grup enemic i tots els grups enemics adjacents al grup
+ *       resultant són estrictament més petits. Tots aquests grups es capturen i el
+ *       jugador torna a tirar</li>
+ *   <li>Si després de passar el torn el rival no té moviments, el torn torna
+ *       al jugador que acaba de tirar</li>
+ *   <li>La partida acaba quan un dels dos jugadors es queda sense pedres
+ *       (i n'hi ha hagut més d'una al tauler); guanya qui ha tirat</li>
+ * </ul>
+ *
+ * <p>A més de les pedres, es manté per a cada color el nombre de veïns de cada
+ * casella, de manera que els moviments no-captura són simplement
+ * {@code buides & ~adjacents[torn]} i només cal analitzar en detall les
+ * caselles adjacents a pedres pròpies.</p>
+ *
+ * <p>També es manté la clau de Zobrist de 64 bits ({@link Zobrist}) de forma
+ * incremental: s'actualitza per cada pedra posada o capturada i per cada canvi
+ * de torn, de manera que {@link #getKey()} és O(1).</p>
+ *
+ * <p>Per als filtres de seguretat es manté, per a cada color i casella, quantes
+ * pedres d'aquell color hi ha a distància de Manhattan 1 i fins a 2 (mètrica
+ * |dx|+|dy| de {@link HexTopology#getManhattan(int, int)}). Saber si una casella
+ * és a distància 3 o més de l'enemic és una sola consulta
+ * ({@link #nearestStoneDistance(int, int)}).</p>
+ *
+ * <p>Els grups es mantenen amb una estructura union-find (unió per mida i sense
+ * compressió de camins, per poder-la desfer): cada arrel guarda la mida del grup
+ * i la frontera (unió de les màscares de veïns de les seves pedres). Així la mida,
+ * les llibertats i els veïns enemics d'un grup surten d'una cerca d'arrel i un
+ * parell de {@code bitCount}, sense recórrer el grup. Les captures sempre treuen
+ * grups sencers, de manera que no cal dividir cap conjunt.</p>
+ *
+ * <p>Cada arrel guarda també la màscara de pedres del grup. Amb la frontera i
+ * aquestes màscares es té el graf d'adjacència entre grups: la classificació
+ * exacta d'una casella buida (fusió dels grups propis veïns, grups enemics que
+ * toca el grup resultant i pedres que es capturarien) es fa en temps proporcional
+ * al nombre de grups implicats, sense cap recorregut per caselles. La partició
+ * entre no-captures ({@code buides & ~adjacents[torn]}) i candidates a captura
+ * ({@code buides & adjacents[torn]}) es manté incrementalment amb els comptadors
+ * de veïns.</p>
+ *
+ * <p>Cada col·locació es desa en una pila de desfer (casella, pedres capturades,
+ * torn, guanyador i clau anteriors), de manera que {@link #unmakeStone()} i
+ * {@link #unmakeTo(int)} tornen exactament a la posició anterior sense haver de
+ * copiar-la. Així la cerca pot treballar sobre una única posició mutable.</p>
+ *
+ * <p>Les estructures auxiliars de cerca (piles i marques) són de la instància:
+ * una posició no s'ha de compartir entre fils.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public class BitboardPosition {
+
+    /** Valor que indica casella buida o absència de jugador. */
+    public static final int BUIT = -1;
+
+    /** Topologia compartida del tauler. */
+    private final HexTopology topo;
+    /** Nombre de paraules per bitboard. */
+    private final int words;
+    /** Nombre de caselles vàlides. */
+    private final int numCells;
+    /** Taula plana de veïns de la topologia. */
+    private final int[] veins;
+
+    /** Pedres de cada color: [0] = PLAYER1, [1] = PLAYER2. */
+    private final long[][] pedres;
+    /** Nombre de pedres de cada color. */
+    private final int[] numPedres;
+    /** Nombre de veïns de cada color per casella: [color][casella]. */
+    private final byte[][] comptVeins;
+    /** Caselles amb almenys un veí de cada color: [color][paraula]. */
+    private final long[][] adjacents;
+    /** Pedres de cada color a distància de Manhattan 1: [color][casella]. */
+    private final byte[][] manhattan1;
+    /** Pedres de cada color a distància de Manhattan 1 o 2: [color][casella]. */
+    private final byte[][] manhattan2;
+
+    /** Color que ha de tirar (0 o 1). */
+    private int torn;
+    /** Color guanyador, o {@link #BUIT}. */
+    private int guanyador;
+    /** Indica si la partida s'ha acabat per {@link #forceLoser(PlayerType)}. */
+    private boolean forcat;
+    /** Clau de Zobrist de la posició (pedres i torn). */
+    private long clau;
+    /** Claus de Zobrist de pedra del tauler: [casella * 2 + color]. */
+    private final long[] clausPedra;
+
+    /** Pila de desfer: casella col·locada a cada entrada. */
+    private int[] desferCasella;
+    /** Pila de desfer: torn, guanyador i forçat anteriors empaquetats. */
+    private int[] desferEstat;
+    /** Pila de desfer: clau de Zobrist anterior. */
+    private long[] desferClau;
+    /** Pila de desfer: pedres capturades ({@code words} paraules per entrada). */
+    private long[] desferCaptura;
+    /** Nombre d'entrades a la pila de desfer. */
+    private int numDesfer;
+    /** Inici del registre de grups de cada entrada de desfer. */
+    private int[] desferRegistre;
+
+    /** Pare de cada pedra a l'union-find (una arrel és el seu propi pare). */
+    private final int[] pare;
+    /** Mida del grup, vàlida a les arrels. */
+    private final int[] midaGrup;
+    /** Frontera de cada grup ({@code words} paraules per casella), vàlida a les arrels. */
+    private final long[] frontera;
+    /** Pedres de cada grup ({@code words} paraules per casella), vàlida a les arrels. */
+    private final long[] pedresGrup;
+    /** Registre de canvis de grups per desfer: casella, pare i mida anteriors. */
+    private int[] registreGrups;
+    /** Registre de canvis de grups per desfer: frontera i pedres anteriors. */
+    private long[] registreFrontera;
+    /** Nombre d'entrades al registre de grups. */
+    private int numRegistre;
+
+    /** Arrels dels grups propis que fusionaria l'últim moviment analitzat. */
+    private final int[] arrelsFusio;
+    /** Frontera del grup que resultaria de l'últim moviment analitzat. */
+    private final long[] fronteraFusio;
+    /** Pedres enemigues que capturaria l'últim moviment analitzat. */
+    private final long[] captura;
+
+    /**
+     * Crea una posició buida per a una mida de costat.
+     *
+     * @param n Mida del costat de l'hexàgon
+     */
+    public BitboardPosition(int n) {
+        this(HexTopology.of(n));
+    }
+
+    /**
+     * Crea una posició buida sobre una topologia.
+     *
+     * @param topo Topologia del tauler
+     */
+    private BitboardPosition(HexTopology topo) {
+        this.topo = topo;
+        this.words = topo.getWords();
+        this.numCells = topo.getNumCells();
+        this.veins = topo.getVeins();
+        this.pedres = new long[2][words];
+        this.numPedres = new int[2];
+        this.comptVeins = new byte[2][numCells];
+        this.adjacents = new long[2][words];
+        this.manhattan1 = new byte[2][numCells];
+        this.manhattan2 = new byte[2][numCells];
+        this.torn = 0;
+        this.guanyador = BUIT;
+        this.forcat = false;
+        this.clau = 0L;
+        this.clausPedra = Zobrist.keys(numCells);
+        this.desferCasella = new int[numCells];
+        this.desferEstat = new int[numCells];
+        this.desferClau = new long[numCells];
+        this.desferCaptura = new long[numCells * words];
+        this.numDesfer = 0;
+        this.desferRegistre = new int[numCells];
+        this.pare = new int[numCells];
+        this.midaGrup = new int[numCells];
+        this.frontera = new long[numCells * words];
+        this.pedresGrup = new long[numCells * words];
+        this.registreGrups = new int[3 * numCells];
+        this.registreFrontera = new long[2 * numCells * words];
+        this.numRegistre = 0;
+        this.arrelsFusio = new int[HexTopology.NUM_DIRS];
+        this.fronteraFusio = new long[words];
+        this.captura = new long[words];
+    }
+
+    /**
+     * Constructor de còpia. La pila de desfer no es copia: la còpia comença
+     * sense historial.
+     *
+     * @param other Posició a copiar
+     */
+    public BitboardPosition(BitboardPosition other) {
+        this(other.topo);
+        for (int c = 0; c < 2; c++) {
+            System.arraycopy(other.pedres[c], 0, pedres[c], 0, words);
+            System.arraycopy(other.comptVeins[c], 0, comptVeins[c], 0, numCells);
+            System.arraycopy(other.adjacents[c], 0, adjacents[c], 0, words);
+            System.arraycopy(other.manhattan1[c], 0, manhattan1[c], 0, numCells);
+            System.arraycopy(other.manhattan2[c], 0, manhattan2[c], 0, numCells);
+            numPedres[c] = other.numPedres[c];
+        }
+        System.arraycopy(other.pare, 0, pare, 0, numCells);
+        System.arraycopy(other.midaGrup, 0, midaGrup, 0, numCells);
+        System.arraycopy(other.frontera, 0, frontera, 0, numCells * words);
+        System.arraycopy(other.pedresGrup, 0, pedresGrup, 0, numCells * words);
+        this.torn = other.torn;
+        this.guanyador = other.guanyador;
+        this.forcat = other.forcat;
+        this.clau = other.clau;
+    }
+
+    /**
+     * Construeix la posició equivalent a un GameStatus del framework.
+     *
+     * @param gs Estat del joc a convertir
+     */
+    public BitboardPosition(GameStatus gs) {
+        this(HexTopology.of(gs.getSize()));
+        for (int cell = 0; cell < numCells; cell++) {
+            PlayerType color = gs.getColor(topo.getX(cell), topo.getY(cell));
+            if (color != null) {
+                posar(cell, colorIndex(color));
+                unirGrups(cell, colorIndex(color));
+            }
+        }
+        this.numRegistre = 0;
+        this.torn = colorIndex(gs.getCurrentPlayer());
+        if (torn == 1) {
+            clau ^= Zobrist.TORN;
+        }
+        PlayerType g = gs.GetWinner();
+        this.guanyador = g == null ? BUIT : colorIndex(g);
+        this.forcat = gs.isGameOver() && !finalNatural();
+    }
+
+    /**
+     * Reconstrueix la posició d'una fotografia: col·loca les pedres, refà els
+     * grups i els comptadors i recalcula la clau. El guanyador d'un final per
+     * regles és el color que encara té pedres.
+     *
+     * @param snapshot Fotografia de la posició
+     */
+    public BitboardPosition(PositionSnapshot snapshot) {
+        this(HexTopology.of(snapshot.getSize()));
+        for (int c = 0; c < 2; c++) {
+            for (int w = 0; w < words; w++) {
+                long bits = snapshot.getWord(c, w);
+                while (bits != 0) {
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    posar(cell, c);
+                    unirGrups(cell, c);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        this.numRegistre = 0;
+        this.torn = snapshot.getTurn();
+        if (torn == 1) {
+            clau ^= Zobrist.TORN;
+        }
+        this.guanyador = finalNatural() ? (numPedres[0] > 0 ? 0 : 1) : BUIT;
+    }
+
+    /**
+     * Converteix un PlayerType a índex de color.
+     *
+     * @param p Jugador
+     * @return 0 per a PLAYER1, 1 per a PLAYER2
+     */
+    public static int colorIndex(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? 0 : 1;
+    }
+
+    /**
+     * Converteix un índex de color a PlayerType.
+     *
+     * @param c Índex de color (0, 1) o {@link #BUIT}
+     * @return Jugador corresponent, o null si és {@link #BUIT}
+     */
+    public static PlayerType toPlayer(int c) {
+        if (c == BUIT) return null;
+        return c == 0 ? PlayerType.PLAYER1 : PlayerType.PLAYER2;
+    }
+
+    // ------------------------------------------------------------------
+    // Consultes
+    // ------------------------------------------------------------------
+
+    /** @return Topologia del tauler */
+    public HexTopology getTopology() {
+        return topo;
+    }
+
+    /** @return Mida del costat del tauler */
+    public int getSize() {
+        return topo.getSize();
+    }
+
+    /**
+     * Obté el color d'una casella.
+     *
+     * @param cell Índex de la casella
+     * @return 0, 1 o {@link #BUIT}
+     */
+    public int color(int cell) {
+        long bit = 1L << cell;
+        int w = cell >>> 6;
+        if ((pedres[0][w] & bit) != 0) return 0;
+        if ((pedres[1][w] & bit) != 0) return 1;
+        return BUIT;
+    }
+
+    /**
+     * Comprova si una casella està ocupada.
+     *
+     * @param cell Índex de la casella
+     * @return true si hi ha alguna pedra
+     */
+    public boolean isOccupied(int cell) {
+        int w = cell >>> 6;
+        return ((pedres[0][w] | pedres[1][w]) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Bitboard de pedres d'un color. No s'ha de modificar.
+     *
+     * @param c Índex de color
+     * @return Paraules de bits de les pedres
+     */
+    public long[] getStones(int c) {
+        return pedres[c];
+    }
+
+    /**
+     * Nombre de pedres d'un color.
+     *
+     * @param c Índex de color
+     * @return Nombre de pedres al tauler
+     */
+    public int getStoneCount(int c) {
+        return numPedres[c];
+    }
+
+    /**
+     * Nombre de veïns d'un color que té una casella.
+     *
+     * @param cell Índex de la casella
+     * @param c Índex de color
+     * @return Nombre de veïns (0..6)
+     */
+    public int getNeighbourCount(int cell, int c) {
+        return comptVeins[c][cell];
+    }
+
+    /**
+     * Distància de Manhattan a la pedra més propera d'un color, saturada a 3.
+     *
+     * <p>Es llegeix dels comptadors de radi 1 i 2, sense recórrer el tauler.</p>
+     *
+     * @param cell Índex de la casella
+     * @param c Índex de color
+     * @return 0 si la pedra és a la casella, 1 o 2 si n'hi ha alguna a aquesta
+     *         distància, 3 si la més propera és a distància 3 o més (o no n'hi ha)
+     */
+    public int nearestStoneDistance(int cell, int c) {
+        if ((pedres[c][cell >>> 6] & (1L << cell)) != 0) return 0;
+        if (manhattan1[c][cell] != 0) return 1;
+        if (manhattan2[c][cell] != 0) return 2;
+        return 3;
+    }
+
+    /**
+     * Clau de Zobrist de 64 bits de la posició (pedres i torn).
+     *
+     * @return Clau de la posició
+     */
+    public long getKey() {
+        return clau;
+    }
+
+    /**
+     * Nombre de col·locacions que es poden desfer.
+     *
+     * @return Profunditat actual de la pila de desfer
+     */
+    public int getUndoDepth() {
+        return numDesfer;
+    }
+
+    // ------------------------------------------------------------------
+    // Grups
+    // ------------------------------------------------------------------
+
+    /**
+     * Arrel del grup d'una pedra.
+     *
+     * @param cell Casella ocupada
+     * @return Casella arrel del grup (identificador del grup)
+     */
+    public int groupRoot(int cell) {
+        int r = cell;
+        while (pare[r] != r) {
+            r = pare[r];
+        }
+        return r;
+    }
+
+    /**
+     * Mida del grup que conté una casella.
+     *
+     * @param cell Índex de la casella
+     * @return Nombre de pedres del grup, 0 si la casella és buida
+     */
+    public int groupSize(int cell) {
+        if (!isOccupied(cell)) return 0;
+        return midaGrup[groupRoot(cell)];
+    }
+
+    /**
+     * Nombre de llibertats (caselles buides adjacents) del grup d'una pedra.
+     *
+     * @param cell Casella ocupada
+     * @return Llibertats del grup
+     */
+    public int groupLiberties(int cell) {
+        int base = groupRoot(cell) * words;
+        long[] valides = topo.getValides();
+        int total = 0;
+        for (int w = 0; w < words; w++) {
+            total += Long.bitCount(frontera[base + w] & valides[w] & ~(pedres[0][w] | pedres[1][w]));
+        }
+        return total;
+    }
+
+    /**
+     * Nombre de pedres enemigues diferents adjacents al grup d'una pedra.
+     *
+     * @param cell Casella ocupada
+     * @return Pedres enemigues que toquen el grup
+     */
+    public int groupEnemyNeighbours(int cell) {
+        int base = groupRoot(cell) * words;
+        long[] enemigues = pedres[color(cell) ^ 1];
+        int total = 0;
+        for (int w = 0; w < words; w++) {
+            total += Long.bitCount(frontera[base + w] & enemigues[w]);
+        }
+        return total;
+    }
+
+    /** @return Color que ha de tirar (0 o 1) */
+    public int getTurn() {
+        return torn;
+    }
+
+    /** @return Jugador que ha de tirar */
+    public PlayerType getCurrentPlayer() {
+        return toPlayer(torn);
+    }
+
+    /** @return Guanyador de la partida, o null */
+    public PlayerType getWinner() {
+        return toPlayer(guanyador);
+    }
+
+    /**
+     * Comprova si la partida s'ha acabat (mateix criteri que GameStatus).
+     *
+     * @return true si la partida ha acabat
+     */
+    public boolean isGameOver() {
+        return forcat || finalNatural();
+    }
+
+    /**
+     * Final per regles: un jugador sense pedres i més d'una pedra jugada.
+     */
+    private boolean finalNatural() {
+        return ((numPedres[0] == 0) ^ (numPedres[1] == 0)) && numPedres[0] + numPedres[1] > 1;
+    }
+
+    /**
+     * Força la derrota d'un jugador (equivalent a {@code GameStatus.forceLoser}).
+     *
+     * @param loser Jugador que perd
+     */
+    public void forceLoser(PlayerType loser) {
+        forcat = true;
+        guanyador = colorIndex(loser) ^ 1;
+    }
+
+    // ------------------------------------------------------------------
+    // Generació i validació de moviments
+    // ------------------------------------------------------------------
+
+    /**
+     * Comprova si col·locar a una casella és legal per al jugador actual.
+     *
+     * @param cell Índex de la casella
+     * @return true si el moviment és legal
+     */
+    public boolean isLegal(int cell) {
+        if (cell < 0 || cell >= numCells || isOccupied(cell)) return false;
+        if (comptVeins[torn][cell] == 0) return true;
+        return analitzarCaptura(cell, torn) >= 0;
+    }
+
+    /**
+     * Comprova si un moviment legal del jugador actual és de captura.
+     *
+     * @param cell Índex de la casella
+     * @return true si és una captura legal
+     */
+    public boolean isCapture(int cell) {
+        if (cell < 0 || cell >= numCells || isOccupied(cell)) return false;
+        if (comptVeins[torn][cell] == 0) return false;
+        return analitzarCaptura(cell, torn) >= 0;
+    }
+
+    /**
+     * Nombre exacte de pedres enemigues que captura un moviment.
+     *
+     * @param cell Índex de la casella
+     * @return Pedres capturades, 0 si és no-captura, -1 si és il·legal
+     */
+    public int captureSize(int cell) {
+        return captureSize(cell, torn);
+    }
+
+    /**
+     * Nombre exacte de pedres enemigues que capturaria un color en una casella,
+     * sigui o no el seu torn.
+     *
+     * @param cell Índex de la casella
+     * @param c Índex de color que col·loca
+     * @return Pedres capturades, 0 si és no-captura, -1 si és il·legal
+     */
+    public int captureSize(int cell, int c) {
+        if (cell < 0 || cell >= numCells || isOccupied(cell)) return -1;
+        if (comptVeins[c][cell] == 0) return 0;
+        return analitzarCaptura(cell, c);
+    }
+
+    /**
+     * Pedres que capturaria un moviment del jugador actual.
+     *
+     * @param cell Índex de la casella
+     * @param out Bitboard on escriure les pedres capturades (buit si no captura)
+     * @return Nombre de pedres capturades, 0 si és no-captura, -1 si és il·legal
+     */
+    public int captureSet(int cell, long[] out) {
+        int mida = captureSize(cell);
+        if (mida > 0) {
+            System.arraycopy(captura, 0, out, 0, words);
+        } else {
+            Arrays.fill(out, 0L);
+        }
+        return mida;
+    }
+
+    /**
+     * Caselles on el jugador actual pot col·locar sense capturar: buides i sense
+     * cap veí propi. Es manté incrementalment amb els comptadors de veïns.
+     *
+     * @param out Bitboard on escriure les caselles (buit si la partida ha acabat)
+     */
+    public void quietMask(long[] out) {
+        if (isGameOver()) {
+            Arrays.fill(out, 0L);
+            return;
+        }
+        long[] valides = topo.getValides();
+        long[] adj = adjacents[torn];
+        for (int w = 0; w < words; w++) {
+            out[w] = valides[w] & ~(pedres[0][w] | pedres[1][w]) & ~adj[w];
+        }
+    }
+
+    /**
+     * Caselles buides amb algun veí propi del jugador actual: les úniques que
+     * poden ser captures (cal validar-les amb {@link #captureSize(int)}).
+     *
+     * @param out Bitboard on escriure les caselles (buit si la partida ha acabat)
+     */
+    public void captureCandidateMask(long[] out) {
+        if (isGameOver()) {
+            Arrays.fill(out, 0L);
+            return;
+        }
+        long[] valides = topo.getValides();
+        long[] adj = adjacents[torn];
+        for (int w = 0; w < words; w++) {
+            out[w] = valides[w] & ~(pedres[0][w] | pedres[1][w]) & adj[w];
+        }
+    }
+
+    /**
+     * Genera tots els moviments legals del jugador actual en ordre creixent
+     * de casella (el mateix ordre que {@code GameStatus.getMoves()}).
+     *
+     * @param out Vector on escriure les caselles (mida mínima numCells)
+     * @return Nombre de moviments escrits
+     */
+    public int generateMoves(int[] out) {
+        if (isGameOver()) return 0;
+        int count = 0;
+        long[] adj = adjacents[torn];
+        long[] valides = topo.getValides();
+        for (int w = 0; w < words; w++) {
+            long buides = valides[w] & ~(pedres[0][w] | pedres[1][w]);
+            while (buides != 0) {
+                long bit = buides & -buides;
+                buides ^= bit;
+                int cell = (w << 6) + Long.numberOfTrailingZeros(bit);
+                if ((adj[w] & bit) == 0 || analitzarCaptura(cell, torn) >= 0) {
+                    out[count++] = cell;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Genera tots els moviments legals a una {@link MoveList} (que es buida abans).
+     *
+     * @param out Llista on escriure els moviments
+     */
+    public void generateMoves(MoveList out) {
+        out.setSize(generateMoves(out.buffer(numCells)));
+    }
+
+    /**
+     * Genera els moviments legals separant captures i no-captures, en ordre
+     * creixent de casella. Una captura és un moviment legal amb algun veí propi.
+     *
+     * @param captures Llista on escriure les captures (es buida abans)
+     * @param quiets Llista on escriure les no-captures (es buida abans)
+     */
+    public void generateMoves(MoveList captures, MoveList quiets) {
+        captures.clear();
+        quiets.clear();
+        if (isGameOver()) return;
+        long[] adj = adjacents[torn];
+        long[] valides = topo.getValides();
+        for (int w = 0; w < words; w++) {
+            long buides = valides[w] & ~(pedres[0][w] | pedres[1][w]);
+            while (buides != 0) {
+                long bit = buides & -buides;
+                buides ^= bit;
+                int cell = (w << 6) + Long.numberOfTrailingZeros(bit);
+                if ((adj[w] & bit) == 0) {
+                    quiets.add(cell);
+                } else if (analitzarCaptura(cell, torn) >= 0) {
+                    captures.add(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Comprova si el jugador actual té algun moviment legal.
+     *
+     * @return true si hi ha almenys un moviment
+     */
+    public boolean hasMoves() {
+        if (isGameOver()) return false;
+        long[] adj = adjacents[torn];
+        long[] valides = topo.getValides();
+        for (int w = 0; w < words; w++) {
+            if ((valides[w] & ~(pedres[0][w] | pedres[1][w]) & ~adj[w]) != 0) {
+                return true;
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            long candidates = valides[w] & ~(pedres[0][w] | pedres[1][w]) & adj[w];
+            while (candidates != 0) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                if (analitzarCaptura(cell, torn) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Analitza una col·locació del color c adjacent a pedres pròpies.
+     *
+     * <p>Fa servir el graf de grups: fusiona (virtualment) els grups propis
+     * veïns sumant-ne les mides i unint-ne les fronteres, i després recorre els
+     * grups enemics que toca aquesta frontera, un cop cadascun gràcies a la
+     * màscara de pedres de cada arrel. Deixa a {@link #captura} les pedres
+     * enemigues que es capturarien.</p>
+     *
+     * @param cell Casella buida on col·locar
+     * @param c Color que col·loca
+     * @return Nombre de pedres capturades si és una captura legal, -1 altrament
+     */
+    private int analitzarCaptura(int cell, int c) {
+        long[] propies = pedres[c];
+        long[] enemigues = pedres[c ^ 1];
+        System.arraycopy(topo.getVeinsMask(cell), 0, fronteraFusio, 0, words);
+
+        int mida = 1;
+        int numArrels = 0;
+        int base = cell * HexTopology.NUM_DIRS;
+        for (int d = 0; d < HexTopology.NUM_DIRS; d++) {
+            int v = veins[base + d];
+            if (v == HexTopology.FORA || (propies[v >>> 6] & (1L << v)) == 0) continue;
+            int r = groupRoot(v);
+            boolean repetida = false;
+            for (int i = 0; i < numArrels; i++) {
+                if (arrelsFusio[i] == r) {
+                    repetida = true;
+                    break;
+                }
+            }
+            if (repetida) continue;
+            arrelsFusio[numArrels++] = r;
+            mida += midaGrup[r];
+            int fr = r * words;
+            for (int w = 0; w < words; w++) {
+                fronteraFusio[w] |= frontera[fr + w];
+            }
+        }
+
+        int maxEnemic = 0;
+        int totalEnemic = 0;
+        for (int w = 0; w < words; w++) {
+            captura[w] = 0L;
+        }
+        for (int w = 0; w < words; w++) {
+            long candidates = fronteraFusio[w] & enemigues[w] & ~captura[w];
+            while (candidates != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(candidates);
+                int r = groupRoot(v);
+                int midaEnemic = midaGrup[r];
+                totalEnemic += midaEnemic;
+                if (midaEnemic > maxEnemic) maxEnemic = midaEnemic;
+                int pr = r * words;
+                for (int i = 0; i < words; i++) {
+                    captura[i] |= pedresGrup[pr + i];
+                }
+                candidates &= ~captura[w];
+            }
+        }
+
+        return (maxEnemic > 0 && maxEnemic < mida) ? totalEnemic : -1;
+    }
+
+    // ------------------------------------------------------------------
+    // Modificació
+    // ------------------------------------------------------------------
+
+    /**
+     * Col·loca una pedra del jugador actual seguint les regles d'Oust.
+     *
+     * @param cell Índex de la casella
+     * @return true si el moviment ha estat de captura (el jugador continua)
+     * @throws RuntimeException si el moviment és il·legal
+     */
+    public boolean placeStone(int cell) {
+        if (cell < 0 || cell >= numCells) {
+            throw new RuntimeException("Casella fora del tauler: " + cell);
+        }
+        if (isOccupied(cell)) {
+            throw new RuntimeException("No es pot omplir una casella que ja està plena.");
+        }
+        int c = torn;
+        boolean esCaptura = comptVeins[c][cell] > 0;
+        if (esCaptura && analitzarCaptura(cell, c) < 0) {
+            throw new RuntimeException("Moviment il·legal a " + topo.toPoint(cell));
+        }
+        guardarDesfer(cell, esCaptura);
+        posar(cell, c);
+        unirGrups(cell, c);
+        if (esCaptura) {
+            int e = c ^ 1;
+            for (int w = 0; w < words; w++) {
+                long bits = captura[w];
+                while (bits != 0) {
+                    treure((w << 6) + Long.numberOfTrailingZeros(bits), e);
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        if (isGameOver()) {
+            guanyador = c;
+        }
+        if (!esCaptura) {
+            canviarTorn();
+            if (!hasMoves()) {
+                canviarTorn();
+            }
+        }
+        return esCaptura;
+    }
+
+    /**
+     * Desfà l'última col·locació: treu la pedra, retorna les pedres capturades
+     * i restaura torn, guanyador i clau.
+     *
+     * @throws IllegalStateException si no hi ha res a desfer
+     */
+    public void unmakeStone() {
+        if (numDesfer == 0) {
+            throw new IllegalStateException("No hi ha cap moviment per desfer.");
+        }
+        int k = --numDesfer;
+        int estat = desferEstat[k];
+        int c = estat & 1;
+        int e = c ^ 1;
+        int inici = desferRegistre[k];
+        while (numRegistre > inici) {
+            restaurarGrup(--numRegistre);
+        }
+        treure(desferCasella[k], c);
+        int base = k * words;
+        for (int w = 0; w < words; w++) {
+            long bits = desferCaptura[base + w];
+            while (bits != 0) {
+                posar((w << 6) + Long.numberOfTrailingZeros(bits), e);
+                bits &= bits - 1;
+            }
+        }
+        torn = c;
+        guanyador = ((estat >>> 1) & 3) - 1;
+        forcat = (estat & 8) != 0;
+        clau = desferClau[k];
+    }
+
+    /**
+     * Desfà col·locacions fins que la pila de desfer tingui la profunditat indicada.
+     *
+     * @param profunditat Profunditat obtinguda abans amb {@link #getUndoDepth()}
+     */
+    public void unmakeTo(int profunditat) {
+        while (numDesfer > profunditat) {
+            unmakeStone();
+        }
+    }
+
+    /**
+     * Desa a la pila de desfer l'estat previ a una col·locació. Si és una
+     * captura, {@link #captura} ha de contenir les pedres que es capturaran.
+     */
+    private void guardarDesfer(int cell, boolean esCaptura) {
+        if (numDesfer == desferCasella.length) {
+            int mida = numDesfer * 2;
+            desferCasella = Arrays.copyOf(desferCasella, mida);
+            desferEstat = Arrays.copyOf(desferEstat, mida);
+            desferClau = Arrays.copyOf(desferClau, mida);
+            desferCaptura = Arrays.copyOf(desferCaptura, mida * words);
+            desferRegistre = Arrays.copyOf(desferRegistre, mida);
+        }
+        int k = numDesfer++;
+        desferRegistre[k] = numRegistre;
+        desferCasella[k] = cell;
+        desferEstat[k] = torn | ((guanyador + 1) << 1) | (forcat ? 8 : 0);
+        desferClau[k] = clau;
+        int base = k * words;
+        for (int w = 0; w < words; w++) {
+            desferCaptura[base + w] = esCaptura ? captura[w] : 0L;
+        }
+    }
+
+    /**
+     * Crea el grup d'una pedra acabada de posar i el fusiona amb els grups
+     * propis adjacents (unió per mida). Cada arrel modificada es registra
+     * abans per poder-la desfer.
+     */
+    private void unirGrups(int cell, int c) {
+        registrarGrup(cell);
+        pare[cell] = cell;
+        midaGrup[cell] = 1;
+        long[] mascara = topo.getVeinsMask(cell);
+        System.arraycopy(mascara, 0, frontera, cell * words, words);
+        Arrays.fill(pedresGrup, cell * words, (cell + 1) * words, 0L);
+        pedresGrup[cell * words + (cell >>> 6)] = 1L << cell;
+
+        int arrel = cell;
+        long[] propies = pedres[c];
+        int base = cell * HexTopology.NUM_DIRS;
+        for (int d = 0; d < HexTopology.NUM_DIRS; d++) {
+            int v = veins[base + d];
+            if (v == HexTopology.FORA || (propies[v >>> 6] & (1L << v)) == 0) continue;
+            int r = groupRoot(v);
+            if (r == arrel) continue;
+            int gran = midaGrup[r] > midaGrup[arrel] ? r : arrel;
+            int petit = gran == r ? arrel : r;
+            registrarGrup(petit);
+            registrarGrup(gran);
+            pare[petit] = gran;
+            midaGrup[gran] += midaGrup[petit];
+            int bg = gran * words;
+            int bp = petit * words;
+            for (int w = 0; w < words; w++) {
+                frontera[bg + w] |= frontera[bp + w];
+                pedresGrup[bg + w] |= pedresGrup[bp + w];
+            }
+            arrel = gran;
+        }
+    }
+
+    /**
+     * Desa l'estat de grup d'una casella (pare, mida, frontera i pedres) al registre.
+     */
+    private void registrarGrup(int cell) {
+        if (numRegistre * 3 == registreGrups.length) {
+            registreGrups = Arrays.copyOf(registreGrups, registreGrups.length * 2);
+            registreFrontera = Arrays.copyOf(registreFrontera, registreFrontera.length * 2);
+        }
+        int k = numRegistre++;
+        registreGrups[3 * k] = cell;
+        registreGrups[3 * k + 1] = pare[cell];
+        registreGrups[3 * k + 2] = midaGrup[cell];
+        System.arraycopy(frontera, cell * words, registreFrontera, 2 * k * words, words);
+        System.arraycopy(pedresGrup, cell * words, registreFrontera, (2 * k + 1) * words, words);
+    }
+
+    /**
+     * Restaura una entrada del registre de grups.
+     */
+    private void restaurarGrup(int k) {
+        int cell = registreGrups[3 * k];
+        pare[cell] = registreGrups[3 * k + 1];
+        midaGrup[cell] = registreGrups[3 * k + 2];
+        System.arraycopy(registreFrontera, 2 * k * words, frontera, cell * words, words);
+        System.arraycopy(registreFrontera, (2 * k + 1) * words, pedresGrup, cell * words, words);
+    }
+
+    /**
+     * Passa el torn a l'altre jugador i actualitza la clau.
+     */
+    private void canviarTorn() {
+        torn ^= 1;
+        clau ^= Zobrist.TORN;
+    }
+
+    /**
+     * Posa una pedra i actualitza comptadors de veïns.
+     */
+    private void posar(int cell, int c) {
+        pedres[c][cell >>> 6] |= 1L << cell;
+        numPedres[c]++;
+        clau ^= clausPedra[(cell << 1) | c];
+        byte[] compt = comptVeins[c];
+        long[] adj = adjacents[c];
+        int base = cell * HexTopology.NUM_DIRS;
+        for (int d = 0; d < HexTopology.NUM_DIRS; d++) {
+            int v = veins[base + d];
+            if (v != HexTopology.FORA && compt[v]++ == 0) {
+                adj[v >>> 6] |= 1L << v;
+            }
+        }
+        actualitzarManhattan(cell, c, 1);
+    }
+
+    /**
+     * Treu una pedra i actualitza comptadors de veïns.
+     */
+    private void treure(int cell, int c) {
+        pedres[c][cell >>> 6] &= ~(1L << cell);
+        numPedres[c]--;
+        clau ^= clausPedra[(cell << 1) | c];
+        byte[] compt = comptVeins[c];
+        long[] adj = adjacents[c];
+        int base = cell * HexTopology.NUM_DIRS;
+        for (int d = 0; d < HexTopology.NUM_DIRS; d++) {
+            int v = veins[base + d];
+            if (v != HexTopology.FORA && --compt[v] == 0) {
+                adj[v >>> 6] &= ~(1L << v);
+            }
+        }
+        actualitzarManhattan(cell, c, -1);
+    }
+
+    /**
+     * Suma o resta una pedra als comptadors de distància de Manhattan de les
+     * caselles del seu voltant (les llistes de la topologia estan ordenades per
+     * distància, per això les de distància 1 són les primeres).
+     */
+    private void actualitzarManhattan(int cell, int c, int delta) {
+        int[] radi2 = topo.getManhattan(cell, 2);
+        int fi1 = topo.getManhattan(cell, 1).length;
+        byte[] m1 = manhattan1[c];
+        byte[] m2 = manhattan2[c];
+        for (int i = 0; i < radi2.length; i++) {
+            int v = radi2[i];
+            if (i < fi1) m1[v] += delta;
+            m2[v] += delta;
+        }
+    }
+
+    /**
+     * Dues posicions són iguals si tenen les mateixes pedres i el mateix torn
+     * (mateix criteri que {@code GameStatus.equals}).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BitboardPosition)) return false;
+        BitboardPosition other = (BitboardPosition) o;
+        return topo == other.topo && clau == other.clau && torn == other.torn
+                && Arrays.equals(pedres[0], other.pedres[0])
+                && Arrays.equals(pedres[1], other.pedres[1]);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (clau ^ (clau >>> 32));
+    }
+
+    /**
+     * Representació textual del tauler (una fila per línia, X = PLAYER1, O = PLAYER2).
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int ss = topo.getSquareSize();
+        int n = topo.getSize();
+        for (int x = 0; x < ss; x++) {
+            for (int k = 0; k < Math.abs(x - (n - 1)); k++) sb.append(' ');
+            for (int y = 0; y < ss; y++) {
+                int cell = topo.getIndex(x, y);
+                if (cell == HexTopology.FORA) continue;
+                int col = color(cell);
+                sb.append(col == 0 ? 'X' : col == 1 ? 'O' : '.').append(' ');
+            }
+            sb.append('\n');
+        }
+        sb.append("Torn: ").append(getCurrentPlayer());
+        if (isGameOver()) sb.append("  Guanyador: ").append(getWinner());
+        return sb.toString();
+    }
+}
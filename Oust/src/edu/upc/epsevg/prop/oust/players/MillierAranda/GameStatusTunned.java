@@ -4,18 +4,13 @@
  */
 package edu.upc.epsevg.prop.oust.players.MillierAranda;
 
-import edu.upc.epsevg.prop.oust.Dir;
 import edu.upc.epsevg.prop.oust.GameStatus;
 import edu.upc.epsevg.prop.oust.PlayerType;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * Classe optimitzada que extén GameStatus amb funcionalitats de cache i 
@@ -23,6 +18,8 @@ import java.util.Set;
  * 
  * <p>Aquesta classe proporciona:</p>
  * <ul>
+ *   <li>Estat del tauler en bitboards ({@link BitboardPosition}) en lloc de
+ *       l'estat intern de GameStatus</li>
  *   <li>Cache de moviments per evitar recàlculs costosos</li>
  *   <li>Anàlisi i classificació de moviments (captura vs no-captura)</li>
  *   <li>Funcions d'avaluació de grups i vulnerabilitats</li>
@@ -32,19 +29,48 @@ import java.util.Set;
  * <p>El sistema de cache s'invalida automàticament quan es col·loca una nova pedra,
  * garantint la coherència de les dades.</p>
  * 
+ * <p>Les col·locacions es poden desfer amb {@link #unmakeMove()} i
+ * {@link #unmakeTo(int)}: es restauren les pedres capturades, el torn i també
+ * els caches de moviments que hi havia abans. Això permet que la cerca apliqui
+ * un torn complet sobre un únic estat i el desfaci en tornar al pare, en lloc
+ * de copiar l'estat per a cada fill.</p>
+ * 
+ * <p><b>Important:</b> tot l'estat viu a la {@link BitboardPosition} interna,
+ * i per això se sobreescriuen tots els mètodes públics que consulten o
+ * modifiquen el tauler (getColor, isInBounds, getMoves, placeStone,
+ * isGameOver, ...). L'estat heretat de GameStatus (tauler, torn, guanyador i
+ * grups interns, que són privats del framework i no es poden omplir des
+ * d'aquí) només és el de la posició d'origen quan l'estat s'ha creat a partir
+ * d'un GameStatus del framework i encara no s'ha modificat. Després de
+ * qualsevol col·locació, desfer o {@link #forceLoser}, o si l'estat s'ha creat
+ * des d'una {@link BitboardPosition}, queda desfasat: el constructor de còpia
+ * {@code new GameStatus(estat)}, que copia l'estat heretat, retornaria una
+ * altra posició (normalment el tauler buit). Per obtenir un GameStatus
+ * equivalent cal fer servir {@link #toGameStatus()}.</p>
+ * 
  * @author Erik Millier, Alex Aranda
  * 
  */
 public class GameStatusTunned extends GameStatus {
     
+    /** Posició real del joc en format bitboard. */
+    private final BitboardPosition posicio;
+    /** Topologia compartida del tauler. */
+    private final HexTopology topo;
+    /** Indica si l'estat heretat de GameStatus encara és el d'aquesta posició. */
+    private boolean heretatValid;
+    /** Vector auxiliar per generar moviments. */
+    private final int[] bufferMoviments;
+    /** Llista auxiliar de captures per classificar moviments. */
+    private final MoveList capturesAux;
+    /** Llista auxiliar de no-captures per classificar moviments. */
+    private final MoveList quietsAux;
+    
     /** Llista de moviments calculats i emmagatzemats en cache. */
     private List<Point> cachedMoves;
     /** Indica si els moviments han estat calculats i estan en cache. */
     private boolean movesCached;
     
-    /** Hashcode precalculat de l'estat actual per optimitzar comparacions. */
-    private Integer cachedHashCode;
-    
     /** Llista de moviments que resulten en captures, emmagatzemada en cache. */
     private List<Point> cachedCaptureMoves;
     /** Llista de moviments que no resulten en captures, emmagatzemada en cache. */
@@ -52,22 +78,71 @@ public class GameStatusTunned extends GameStatus {
     /** Indica si els moviments han estat analitzats i classificats. */
     private boolean captureMovesAnalyzed;
     
+    /** Caches de moviments desats abans de cada col·locació (per desfer). */
+    private final ArrayList<List<Point>> pilaMoves;
+    /** Caches de captures desats abans de cada col·locació (per desfer). */
+    private final ArrayList<List<Point>> pilaCaptureMoves;
+    /** Caches de no-captures desats abans de cada col·locació (per desfer). */
+    private final ArrayList<List<Point>> pilaNonCaptureMoves;
+    
     /**
      * Constructor que crea un nou estat optimitzat a partir d'un GameStatus existent.
      * 
      * <p>Inicialitza tots els sistemes de cache en estat buit, que seran
      * poblats sota demanda quan es necessitin.</p>
      * 
+     * <p>Si l'estat ja és un GameStatusTunned es copia directament el seu
+     * bitboard; altrament es llegeix casella a casella. L'estat heretat es
+     * copia de l'origen, de manera que és vàlid si l'origen és un GameStatus
+     * del framework (o un GameStatusTunned amb l'estat heretat encara vàlid).</p>
+     * 
      * @param gs Estat del joc a copiar
      */
     public GameStatusTunned(GameStatus gs) {
         super(gs);
+        if (gs instanceof GameStatusTunned) {
+            this.posicio = new BitboardPosition(((GameStatusTunned) gs).posicio);
+            this.heretatValid = ((GameStatusTunned) gs).heretatValid;
+        } else {
+            this.posicio = new BitboardPosition(gs);
+            this.heretatValid = true;
+        }
+        this.topo = posicio.getTopology();
+        this.bufferMoviments = new int[topo.getNumCells()];
+        this.capturesAux = new MoveList(topo.getNumCells());
+        this.quietsAux = new MoveList(topo.getNumCells());
+        this.movesCached = false;
+        this.cachedMoves = null;
+        this.captureMovesAnalyzed = false;
+        this.cachedCaptureMoves = null;
+        this.cachedNonCaptureMoves = null;
+        this.pilaMoves = new ArrayList<>();
+        this.pilaCaptureMoves = new ArrayList<>();
+        this.pilaNonCaptureMoves = new ArrayList<>();
+    }
+    
+    /**
+     * Crea un estat optimitzat que pren possessió d'una posició bitboard.
+     * L'utilitza {@link PositionSnapshot#toGameStatus()}.
+     * 
+     * @param posicio Posició interna (no es copia)
+     */
+    GameStatusTunned(BitboardPosition posicio) {
+        super(posicio.getSize());
+        this.posicio = posicio;
+        this.heretatValid = false;
+        this.topo = posicio.getTopology();
+        this.bufferMoviments = new int[topo.getNumCells()];
+        this.capturesAux = new MoveList(topo.getNumCells());
+        this.quietsAux = new MoveList(topo.getNumCells());
         this.movesCached = false;
         this.cachedMoves = null;
-        this.cachedHashCode = null;
         this.captureMovesAnalyzed = false;
         this.cachedCaptureMoves = null;
         this.cachedNonCaptureMoves = null;
+        this.pilaMoves = new ArrayList<>();
+        this.pilaCaptureMoves = new ArrayList<>();
+        this.pilaNonCaptureMoves = new ArrayList<>();
     }
     
     /**
@@ -81,7 +156,11 @@ public class GameStatusTunned extends GameStatus {
     @Override
     public List<Point> getMoves() {
         if (!movesCached) {
-            cachedMoves = super.getMoves();
+            int count = posicio.generateMoves(bufferMoviments);
+            cachedMoves = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                cachedMoves.add(topo.toPoint(bufferMoviments[i]));
+            }
             movesCached = true;
         }
         return cachedMoves;
@@ -121,24 +200,15 @@ public class GameStatusTunned extends GameStatus {
     /**
      * Analitza tots els moviments i els classifica en captura/no-captura.
      * 
-     * <p>Aquest mètode s'executa només una vegada per estat, i els resultats
-     * es guarden en cache per a accessos posteriors.</p>
+     * <p>La partició surt directament de la posició: les no-captures són les
+     * caselles buides sense veí propi (bitboard mantingut incrementalment) i
+     * les captures es validen de forma exacta amb el graf de grups. Aquest mètode
+     * només converteix el resultat a punts, una vegada per estat.</p>
      */
     private void analyzeMoves() {
-        cachedCaptureMoves = new ArrayList<>();
-        cachedNonCaptureMoves = new ArrayList<>();
-        
-        List<Point> allMoves = getMoves();
-        PlayerType currentPlayer = getCurrentPlayer();
-        
-        for (Point move : allMoves) {
-            if (isCapturingMove(move, currentPlayer)) {
-                cachedCaptureMoves.add(move);
-            } else {
-                cachedNonCaptureMoves.add(move);
-            }
-        }
-        
+        posicio.generateMoves(capturesAux, quietsAux);
+        cachedCaptureMoves = capturesAux.toPoints(topo);
+        cachedNonCaptureMoves = quietsAux.toPoints(topo);
         captureMovesAnalyzed = true;
     }
     
@@ -152,8 +222,199 @@ public class GameStatusTunned extends GameStatus {
      */
     @Override
     public void placeStone(Point p) {
-        super.placeStone(p);
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) {
+            throw new RuntimeException("Punt fora del tauler: " + p);
+        }
+        placeStone(cell);
+    }
+    
+    /**
+     * Col·loca una pedra indicada per índex de casella ({@link HexTopology}).
+     * 
+     * <p>És la versió que fa servir la cerca: no crea cap {@link Point}.</p>
+     * 
+     * @param cell Índex de la casella
+     * @return true si el moviment ha estat de captura (el jugador continua)
+     */
+    public boolean placeStone(int cell) {
+        boolean esCaptura = posicio.placeStone(cell);
+        heretatValid = false;
+        pilaMoves.add(cachedMoves);
+        pilaCaptureMoves.add(cachedCaptureMoves);
+        pilaNonCaptureMoves.add(cachedNonCaptureMoves);
         invalidateCache();
+        return esCaptura;
+    }
+    
+    /**
+     * Genera els moviments legals com a índexs de casella, sense crear punts.
+     * 
+     * @param out Llista on escriure els moviments (es buida abans)
+     */
+    public void generateMoves(MoveList out) {
+        posicio.generateMoves(out);
+    }
+    
+    /**
+     * Genera els moviments legals separats en captures i no-captures,
+     * com a índexs de casella.
+     * 
+     * @param captures Llista on escriure les captures (es buida abans)
+     * @param quiets Llista on escriure les no-captures (es buida abans)
+     */
+    public void generateMoves(MoveList captures, MoveList quiets) {
+        posicio.generateMoves(captures, quiets);
+    }
+    
+    /** @return Topologia del tauler */
+    public HexTopology getTopology() {
+        return topo;
+    }
+    
+    /**
+     * Nombre de col·locacions que es poden desfer.
+     * 
+     * <p>Es fa servir com a marca: es guarda abans d'aplicar un torn i es passa
+     * a {@link #unmakeTo(int)} per tornar a l'estat del pare.</p>
+     * 
+     * @return Profunditat actual de la pila de desfer
+     */
+    public int getUndoDepth() {
+        return posicio.getUndoDepth();
+    }
+    
+    /**
+     * Desfà l'última col·locació feta amb {@link #placeStone(Point)}.
+     * 
+     * <p>Retorna les pedres capturades, el torn, el guanyador i la clau de
+     * Zobrist, i recupera els caches de moviments de l'estat anterior.</p>
+     * 
+     * @throws IllegalStateException si no hi ha cap col·locació per desfer
+     */
+    public void unmakeMove() {
+        posicio.unmakeStone();
+        heretatValid = false;
+        int k = pilaMoves.size() - 1;
+        cachedMoves = pilaMoves.remove(k);
+        cachedCaptureMoves = pilaCaptureMoves.remove(k);
+        cachedNonCaptureMoves = pilaNonCaptureMoves.remove(k);
+        movesCached = cachedMoves != null;
+        captureMovesAnalyzed = cachedCaptureMoves != null;
+    }
+    
+    /**
+     * Desfà col·locacions fins a tornar a una marca de {@link #getUndoDepth()}.
+     * 
+     * @param marca Profunditat de la pila de desfer a recuperar
+     */
+    public void unmakeTo(int marca) {
+        while (posicio.getUndoDepth() > marca) {
+            unmakeMove();
+        }
+    }
+    
+    /**
+     * Obté el color d'una casella.
+     * 
+     * @param p Punt a consultar
+     * @return Jugador propietari de la pedra, o null si és buida o fora de l'hexàgon
+     * @throws RuntimeException si el punt és fora del quadrat del tauler
+     */
+    @Override
+    public PlayerType getColor(Point p) {
+        return getColor(p.x, p.y);
+    }
+    
+    /**
+     * Obté el color d'una casella.
+     * 
+     * @param x Coordenada x
+     * @param y Coordenada y
+     * @return Jugador propietari de la pedra, o null si és buida o fora de l'hexàgon
+     * @throws RuntimeException si les coordenades són fora del quadrat del tauler
+     */
+    @Override
+    public PlayerType getColor(int x, int y) {
+        if (x < 0 || x >= getSquareSize()) throw new RuntimeException("Invalid row");
+        if (y < 0 || y >= getSquareSize()) throw new RuntimeException("Invalid column");
+        int cell = topo.getIndex(x, y);
+        if (cell == HexTopology.FORA) return null;
+        return BitboardPosition.toPlayer(posicio.color(cell));
+    }
+    
+    /**
+     * Comprova si un punt pertany al tauler hexagonal.
+     * 
+     * @param p Punt a comprovar
+     * @return true si és una casella vàlida
+     */
+    @Override
+    public boolean isInBounds(Point p) {
+        return topo.getIndex(p) != HexTopology.FORA;
+    }
+    
+    /** @return true si la partida s'ha acabat */
+    @Override
+    public boolean isGameOver() {
+        return posicio.isGameOver();
+    }
+    
+    /** @return Guanyador de la partida, o null si no n'hi ha */
+    @Override
+    public PlayerType GetWinner() {
+        return posicio.getWinner();
+    }
+    
+    /** @return Jugador que ha de tirar */
+    @Override
+    public PlayerType getCurrentPlayer() {
+        return posicio.getCurrentPlayer();
+    }
+    
+    /**
+     * Força la derrota d'un jugador.
+     * 
+     * @param loser Jugador que perd la partida
+     */
+    @Override
+    public void forceLoser(PlayerType loser) {
+        posicio.forceLoser(loser);
+        heretatValid = false;
+        invalidateCache();
+    }
+    
+    /** @return Diferència de pedres (PLAYER1 - PLAYER2) */
+    @Override
+    public int diff() {
+        return posicio.getStoneCount(0) - posicio.getStoneCount(1);
+    }
+    
+    /**
+     * Obté la posició en format bitboard (compartida, no copiada).
+     * 
+     * @return Posició interna
+     */
+    public BitboardPosition getPosition() {
+        return posicio;
+    }
+    
+    /**
+     * Dos estats són iguals si tenen les mateixes pedres i el mateix torn.
+     * 
+     * @param o Objecte a comparar
+     * @return true si representen la mateixa posició
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameStatusTunned)) return false;
+        return posicio.equals(((GameStatusTunned) o).posicio);
+    }
+    
+    @Override
+    public String toString() {
+        return posicio.toString();
     }
     
     /**
@@ -165,7 +426,6 @@ public class GameStatusTunned extends GameStatus {
     private void invalidateCache() {
         movesCached = false;
         cachedMoves = null;
-        cachedHashCode = null;
         captureMovesAnalyzed = false;
         cachedCaptureMoves = null;
         cachedNonCaptureMoves = null;
@@ -174,47 +434,49 @@ public class GameStatusTunned extends GameStatus {
     /**
      * Calcula un hashcode per a l'estat actual.
      * 
-     * <p>El hashcode es calcula només una vegada i es guarda en cache
-     * per optimitzar les comparacions d'estats en la taula de transposició.</p>
+     * <p>Es deriva de la clau de Zobrist, que es manté incrementalment,
+     * per tant és O(1) i no cal guardar-lo en cache.</p>
      * 
      * @return Hashcode de l'estat actual
      */
     @Override
     public int hashCode() {
-        if (cachedHashCode == null) {
-            cachedHashCode = super.hashCode();
-        }
-        return cachedHashCode;
+        return posicio.hashCode();
+    }
+    
+    /**
+     * Obté la clau de Zobrist de 64 bits de l'estat.
+     * 
+     * <p>La clau s'actualitza dins de placeStone per la pedra col·locada,
+     * per cada pedra capturada i pel canvi de torn, i es copia amb el
+     * constructor de còpia. És la clau que cal fer servir a la taula de
+     * transposició.</p>
+     * 
+     * @return Clau de Zobrist de l'estat actual
+     */
+    public long getZobristKey() {
+        return posicio.getKey();
     }
     
     /**
      * Comprova si un moviment és de captura.
      * 
      * <p>Un moviment captura si connecta amb pedres pròpies (requisit per
-     * continuar el torn segons les regles d'Oust) i té oportunitat de
-     * capturar pedres enemigues.</p>
+     * continuar el torn segons les regles d'Oust) i el grup resultant és
+     * estrictament més gran que tots els grups enemics que toca. La comprovació
+     * és exacta: un moviment adjacent a pedres pròpies però il·legal no compta.</p>
      * 
      * @param p Posició a comprovar
      * @param player Jugador que fa el moviment
      * @return true si el moviment captura pedres enemigues, false altrament
      */
     public boolean isCapturingMove(Point p, PlayerType player) {
-        if (!isInBounds(p) || getColor(p) != null) {
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA || posicio.isOccupied(cell)) {
             return false;
         }
         
-        // Comprovar si connecta amb pedres pròpies (requisit per captura)
-        boolean connectsWithOwn = false;
-        
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(p);
-            if (isInBounds(adj) && getColor(adj) == player) {
-                connectsWithOwn = true;
-                break;
-            }
-        }
-        
-        return connectsWithOwn;
+        return posicio.captureSize(cell, BitboardPosition.colorIndex(player)) > 0;
     }
     
     /**
@@ -231,40 +493,28 @@ public class GameStatusTunned extends GameStatus {
     }
     
     /**
-     * Estima quantes pedres enemigues pot capturar un moviment.
+     * Calcula quantes pedres enemigues captura un moviment del jugador actual.
      * 
-     * <p>Aquesta estimació es basa en comptar les pedres enemigues adjacents
-     * a la posició del moviment. És una aproximació que s'utilitza per ordenar
-     * moviments de captura.</p>
+     * <p>El valor és exacte: la suma de les mides de tots els grups enemics
+     * que toca el grup resultant, calculada amb el graf de grups. S'utilitza
+     * per ordenar i valorar moviments de captura.</p>
      * 
      * @param p Posició del moviment
-     * @return Nombre estimat de pedres capturades (0 si no és captura)
+     * @return Nombre de pedres capturades (0 si no és captura o és il·legal)
      */
     public int estimateCaptureValue(Point p) {
-        if (!isCapturingMove(p)) {
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) {
             return 0;
         }
-        
-        PlayerType player = getCurrentPlayer();
-        PlayerType enemy = player.opposite();
-        int captureValue = 0;
-        
-        // Comptar pedres enemigues adjacents
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(p);
-            if (isInBounds(adj) && getColor(adj) == enemy) {
-                captureValue++;
-            }
-        }
-        
-        return captureValue;
+        return Math.max(0, posicio.captureSize(cell));
     }
     
     /**
      * Crea una còpia optimitzada de l'estat actual.
      * 
-     * <p>Nota: El cache no es copia, cada instància tindrà el seu propi cache
-     * independent.</p>
+     * <p>Nota: El cache i la pila de desfer no es copien, cada instància tindrà
+     * el seu propi cache independent.</p>
      * 
      * @return Nova instància de GameStatusTunned amb l'estat copiat
      */
@@ -272,6 +522,24 @@ public class GameStatusTunned extends GameStatus {
         return new edu.upc.epsevg.prop.oust.players.MillierAranda.GameStatusTunned(this);
     }
     
+    /**
+     * Retorna un GameStatus equivalent a aquesta posició, per passar-lo a codi
+     * que en fa còpies amb {@code new GameStatus(...)}.
+     * 
+     * <p>Si l'estat heretat encara és vàlid (estat creat des d'un GameStatus
+     * del framework i sense modificar) és un GameStatus del framework.
+     * Altrament és una còpia optimitzada: el framework no permet construir
+     * un GameStatus a partir d'una posició arbitrària (els grups interns són
+     * privats i no s'hi pot arribar sempre jugant pedres), i cal tractar-la
+     * amb els mètodes públics o amb {@link #copy()}, no amb
+     * {@code new GameStatus(...)}.</p>
+     * 
+     * @return Estat equivalent a aquesta posició
+     */
+    public GameStatus toGameStatus() {
+        return heretatValid ? new GameStatus(this) : copy();
+    }
+    
     /**
      * Avaluació ràpida de l'estat per heurístiques.
      * 
@@ -283,25 +551,8 @@ public class GameStatusTunned extends GameStatus {
     public Map<String, Integer> getQuickMetrics() {
         Map<String, Integer> metrics = new HashMap<>();
         
-        int p1Stones = 0;
-        int p2Stones = 0;
-        
-        for (int i = 0; i < getSquareSize(); i++) {
-            for (int j = 0; j < getSquareSize(); j++) {
-                Point p = new Point(i, j);
-                if (!isInBounds(p)) continue;
-                
-                PlayerType color = getColor(p);
-                if (color == PlayerType.PLAYER1) {
-                    p1Stones++;
-                } else if (color == PlayerType.PLAYER2) {
-                    p2Stones++;
-                }
-            }
-        }
-        
-        metrics.put("player1_stones", p1Stones);
-        metrics.put("player2_stones", p2Stones);
+        metrics.put("player1_stones", posicio.getStoneCount(0));
+        metrics.put("player2_stones", posicio.getStoneCount(1));
         metrics.put("available_moves", getMoves().size());
         metrics.put("capture_moves", getCaptureMoves().size());
         
@@ -311,98 +562,64 @@ public class GameStatusTunned extends GameStatus {
     /**
      * Obté la mida d'un grup connectat que conté un punt.
      * 
-     * <p>Utilitza una cerca en amplada (BFS) per comptar totes les pedres
-     * del mateix color connectades a la posició donada.</p>
+     * <p>Es consulta directament a l'union-find de la posició, que es manté
+     * actualitzat a cada col·locació i captura: no cal recórrer el grup.</p>
      * 
      * @param p Punt del grup a comptar
      * @return Mida del grup (0 si no hi ha pedra a la posició)
      */
     public int getGroupSize(Point p) {
-        if (!isInBounds(p)) return 0;
-        
-        PlayerType color = getColor(p);
-        if (color == null) return 0;
-        
-        // Usar BFS per comptar el grup
-        Set<Point> visitats = new HashSet<>();
-        Queue<Point> queue = new LinkedList<>();
-        queue.add(p);
-        visitats.add(p);
-        
-        int mida = 0;
-        while (!queue.isEmpty()) {
-            Point actual = queue.poll();
-            mida++;
-            
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(actual);
-                if (isInBounds(adj) && !visitats.contains(adj) && getColor(adj) == color) {
-                    visitats.add(adj);
-                    queue.add(adj);
-                }
-            }
-        }
-        
-        return mida;
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) return 0;
+        return posicio.groupSize(cell);
+    }
+    
+    /**
+     * Obté el nombre de llibertats (caselles buides adjacents) del grup d'un punt.
+     * 
+     * @param p Punt del grup
+     * @return Llibertats del grup (0 si no hi ha pedra a la posició)
+     */
+    public int getGroupLiberties(Point p) {
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA || !posicio.isOccupied(cell)) return 0;
+        return posicio.groupLiberties(cell);
+    }
+    
+    /**
+     * Obté el nombre de pedres enemigues diferents adjacents al grup d'un punt.
+     * 
+     * @param p Punt del grup
+     * @return Pedres enemigues que toquen el grup (0 si no hi ha pedra a la posició)
+     */
+    public int getGroupEnemyNeighbours(Point p) {
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA || !posicio.isOccupied(cell)) return 0;
+        return posicio.groupEnemyNeighbours(cell);
     }
     
     /**
      * Obté tots els grups d'un jugador amb les seves mides.
      * 
-     * <p>Recorre tot el tauler identificant grups únics i calculant-ne la mida.
-     * Cada grup només es processa una vegada.</p>
+     * <p>Cada grup apareix una sola vegada, representat per la pedra arrel
+     * del seu union-find.</p>
      * 
      * @param player Jugador del qual es volen obtenir els grups
      * @return Mapa de punt representatiu → mida del grup
      */
     public Map<Point, Integer> getGroupSizes(PlayerType player) {
         Map<Point, Integer> grups = new HashMap<>();
-        Set<Point> visitats = new HashSet<>();
+        int c = BitboardPosition.colorIndex(player);
         
-        for (int i = 0; i < getSquareSize(); i++) {
-            for (int j = 0; j < getSquareSize(); j++) {
-                Point p = new Point(i, j);
-                if (!isInBounds(p) || visitats.contains(p)) continue;
-                if (getColor(p) != player) continue;
-                
-                int mida = getGroupSize(p);
-                grups.put(p, mida);
-                
-                // Marcar tot el grup com visitat
-                marcarGrupVisitat(p, player, visitats);
+        for (int cell = 0; cell < topo.getNumCells(); cell++) {
+            if (posicio.color(cell) == c && posicio.groupRoot(cell) == cell) {
+                grups.put(topo.toPoint(cell), posicio.groupSize(cell));
             }
         }
         
         return grups;
     }
     
-    /**
-     * Marca tots els punts d'un grup com a visitats.
-     * 
-     * <p>Utilitzat internament per evitar processar el mateix grup múltiples vegades.</p>
-     * 
-     * @param inici Punt inicial del grup
-     * @param color Color del jugador
-     * @param visitats Conjunt de punts ja visitats (s'actualitza durant l'execució)
-     */
-    private void marcarGrupVisitat(Point inici, PlayerType color, Set<Point> visitats) {
-        Queue<Point> queue = new LinkedList<>();
-        queue.add(inici);
-        visitats.add(inici);
-        
-        while (!queue.isEmpty()) {
-            Point actual = queue.poll();
-            
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(actual);
-                if (isInBounds(adj) && !visitats.contains(adj) && getColor(adj) == color) {
-                    visitats.add(adj);
-                    queue.add(adj);
-                }
-            }
-        }
-    }
-    
     /**
      * Troba el grup més gran adjacent a un punt dins d'un radi especificat.
      * 
@@ -415,50 +632,66 @@ public class GameStatusTunned extends GameStatus {
      * @return Mida del grup més gran trobat dins del radi (0 si no n'hi ha cap)
      */
     public int findLargestNearbyGroup(Point p, PlayerType player, int radi) {
-        Set<Point> explorats = new HashSet<>();
-        Set<Point> candidats = new HashSet<>();
-        
-        // BFS per trobar tots els punts dins del radi
-        Queue<Point> queue = new LinkedList<>();
-        Map<Point, Integer> distancies = new HashMap<>();
-        
-        queue.add(p);
-        distancies.put(p, 0);
-        
-        while (!queue.isEmpty()) {
-            Point actual = queue.poll();
-            int dist = distancies.get(actual);
-            
-            if (dist >= radi) continue;
-            
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(actual);
-                if (!isInBounds(adj) || distancies.containsKey(adj)) continue;
-                
-                distancies.put(adj, dist + 1);
-                queue.add(adj);
-                
-                if (getColor(adj) == player) {
-                    candidats.add(adj);
-                }
-            }
-        }
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) return 0;
+        return grupMesGranProper(cell, BitboardPosition.colorIndex(player), radi);
+    }
+    
+    /**
+     * Versió per índex de {@link #findLargestNearbyGroup(Point, PlayerType, int)}.
+     * 
+     * <p>Fins a {@link HexTopology#MAX_RADI} fa servir la màscara de veïnatge
+     * precalculada; per a radis més grans l'amplia amb les màscares de veïns.</p>
+     * 
+     * @param cell Casella central
+     * @param c Índex de color dels grups a buscar
+     * @param radi Radi màxim de cerca
+     * @return Mida del grup més gran dins del radi
+     */
+    private int grupMesGranProper(int cell, int c, int radi) {
+        if (radi <= 0) return 0;
+        long[] zona = radi <= HexTopology.MAX_RADI ? topo.getRadiMask(cell, radi) : ampliarRadi(cell, radi);
+        long[] pedres = posicio.getStones(c);
         
-        // Trobar el grup més gran entre els candidats
         int midaMaxima = 0;
-        for (Point candidat : candidats) {
-            if (explorats.contains(candidat)) continue;
-            
-            int midaGrup = getGroupSize(candidat);
-            midaMaxima = Math.max(midaMaxima, midaGrup);
-            
-            // Marcar tot el grup com explorat
-            marcarGrupVisitat(candidat, player, explorats);
+        for (int w = 0; w < zona.length; w++) {
+            long candidats = zona[w] & pedres[w];
+            while (candidats != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(candidats);
+                candidats &= candidats - 1;
+                midaMaxima = Math.max(midaMaxima, posicio.groupSize(v));
+            }
         }
         
         return midaMaxima;
     }
     
+    /**
+     * Màscara de les caselles a distància 1..radi d'una casella, per a radis
+     * més grans que els precalculats.
+     */
+    private long[] ampliarRadi(int cell, int radi) {
+        int words = topo.getWords();
+        long[] zona = topo.getRadiMask(cell, HexTopology.MAX_RADI).clone();
+        zona[cell >>> 6] |= 1L << cell;
+        for (int k = HexTopology.MAX_RADI; k < radi; k++) {
+            long[] seguent = zona.clone();
+            for (int w = 0; w < words; w++) {
+                long bits = zona[w];
+                while (bits != 0) {
+                    long[] veins = topo.getVeinsMask((w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                    for (int i = 0; i < words; i++) {
+                        seguent[i] |= veins[i];
+                    }
+                }
+            }
+            zona = seguent;
+        }
+        zona[cell >>> 6] &= ~(1L << cell);
+        return zona;
+    }
+    
     /**
      * Detecta si un punt és una possible trampa.
      * 
@@ -475,33 +708,22 @@ public class GameStatusTunned extends GameStatus {
      * @return true si és una trampa efectiva, false altrament
      */
     public boolean isPossibleTrap(Point p) {
-        if (!isInBounds(p)) return false;
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) return false;
         
-        PlayerType color = getColor(p);
-        if (color == null) return false;
+        int color = posicio.color(cell);
+        if (color == BitboardPosition.BUIT) return false;
         
         // Ha de ser un grup petit (trampa)
-        int midaGrup = getGroupSize(p);
+        int midaGrup = posicio.groupSize(cell);
         if (midaGrup > 2) return false;
         
-        PlayerType enemic = color.opposite();
-        
         // Ha de tenir enemic adjacent
-        boolean teEnemicAdjacent = false;
-        int midaGrupEnemicAdjacent = 0;
-        
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(p);
-            if (isInBounds(adj) && getColor(adj) == enemic) {
-                teEnemicAdjacent = true;
-                midaGrupEnemicAdjacent = Math.max(midaGrupEnemicAdjacent, getGroupSize(adj));
-            }
-        }
-        
-        if (!teEnemicAdjacent) return false;
+        int midaGrupEnemicAdjacent = midaMaximaVeina(cell, color ^ 1);
+        if (midaGrupEnemicAdjacent == 0) return false;
         
         // Buscar grup aliat proper que pugui contra-atacar
-        int grupAliatProper = findLargestNearbyGroup(p, color, 2);
+        int grupAliatProper = grupMesGranProper(cell, color, 2);
         
         // És trampa si grup aliat > grup enemic que capturaria
         return grupAliatProper > midaGrupEnemicAdjacent + midaGrup;
@@ -518,32 +740,43 @@ public class GameStatusTunned extends GameStatus {
      * @return true si capturar aquest punt seria caure en una trampa, false altrament
      */
     public boolean isEnemyTrap(Point p, PlayerType player) {
-        if (!isInBounds(p)) return false;
+        int cell = topo.getIndex(p);
+        if (cell == HexTopology.FORA) return false;
         
-        PlayerType colorTrampa = getColor(p);
-        if (colorTrampa == null || colorTrampa == player) return false;
+        int propi = BitboardPosition.colorIndex(player);
+        int colorTrampa = posicio.color(cell);
+        if (colorTrampa == BitboardPosition.BUIT || colorTrampa == propi) return false;
         
         // Comprovar si és trampa des del punt de vista de l'enemic
-        int midaGrupTrampa = getGroupSize(p);
+        int midaGrupTrampa = posicio.groupSize(cell);
         if (midaGrupTrampa > 2) return false;
         
         // Tenim pedres adjacents?
-        boolean tePropriAdjacent = false;
-        int midaGrupPropiAdjacent = 0;
-        
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(p);
-            if (isInBounds(adj) && getColor(adj) == player) {
-                tePropriAdjacent = true;
-                midaGrupPropiAdjacent = Math.max(midaGrupPropiAdjacent, getGroupSize(adj));
-            }
-        }
-        
-        if (!tePropriAdjacent) return false;
+        int midaGrupPropiAdjacent = midaMaximaVeina(cell, propi);
+        if (midaGrupPropiAdjacent == 0) return false;
         
         // L'enemic té grup proper més gran?
-        int grupEnemicProper = findLargestNearbyGroup(p, colorTrampa, 2);
+        int grupEnemicProper = grupMesGranProper(cell, colorTrampa, 2);
         
         return grupEnemicProper > midaGrupPropiAdjacent + midaGrupTrampa;
     }
+    
+    /**
+     * Mida del grup més gran d'un color entre els veïns d'una casella.
+     * 
+     * @param cell Índex de la casella
+     * @param c Índex de color
+     * @return Mida màxima, o 0 si no hi ha cap veí d'aquest color
+     */
+    public int midaMaximaVeina(int cell, int c) {
+        if (posicio.getNeighbourCount(cell, c) == 0) return 0;
+        int midaMaxima = 0;
+        for (int d = 0; d < HexTopology.NUM_DIRS; d++) {
+            int v = topo.getVei(cell, d);
+            if (v != HexTopology.FORA && posicio.color(v) == c) {
+                midaMaxima = Math.max(midaMaxima, posicio.groupSize(v));
+            }
+        }
+        return midaMaxima;
+    }
 }
@@ -0,0 +1,384 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.Dir;
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Topologia precalculada del tauler hexagonal d'Oust per a una mida de costat.
+ *
+ * <p>Assigna a cada casella vàlida un índex dens (0..numCells-1) en el mateix
+ * ordre en què {@code GameStatus.getMoves()} recorre el tauler (fila x, columna y),
+ * de manera que iterar els bits d'un bitboard en ordre creixent dona exactament
+ * el mateix ordre de moviments que el framework.</p>
+ *
+ * <p>També precalcula, per a cada casella, els veïnatges de radi 1 a
+ * {@link #MAX_RADI}: en distància hexagonal (passos entre veïns, la mateixa que
+ * fa servir una BFS pel tauler) i en distància de Manhattan sobre les coordenades
+ * (x, y), que és la mètrica dels filtres de seguretat del jugador. Es poden
+ * consultar com a llistes d'índexs o com a màscares de bits.</p>
+ *
+ * <p>Les taules són immutables i es comparteixen entre totes les posicions
+ * de la mateixa mida (una instància per mida, creada sota demanda).</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class HexTopology {
+
+    /** Valor sentinella per a veïns fora del tauler. */
+    public static final int FORA = -1;
+
+    /** Nombre de direccions d'un hexàgon. */
+    public static final int NUM_DIRS = 6;
+
+    /** Radi màxim dels veïnatges precalculats. */
+    public static final int MAX_RADI = 3;
+
+    /**
+     * Instàncies ja construïdes, indexades per mida de costat. Creix sota
+     * demanda (no hi ha mida màxima) i es substitueix sencer en créixer.
+     */
+    private static volatile HexTopology[] cache = new HexTopology[16];
+
+    /** Mida del costat de l'hexàgon. */
+    private final int n;
+    /** Mida del quadrat que conté l'hexàgon (2n-1). */
+    private final int squareSize;
+    /** Nombre de caselles vàlides del tauler. */
+    private final int numCells;
+    /** Nombre de paraules de 64 bits necessàries per a un bitboard. */
+    private final int words;
+
+    /** Coordenada x de cada casella. */
+    private final int[] cellX;
+    /** Coordenada y de cada casella. */
+    private final int[] cellY;
+    /** Índex dens de cada coordenada del quadrat (x*squareSize+y), o FORA. */
+    private final int[] index;
+    /** Taula plana de veïns: veins[cell*6+d], o FORA si surt del tauler. */
+    private final int[] veins;
+    /** Màscara de bits dels veïns de cada casella. */
+    private final long[][] veinsMask;
+    /** Màscara amb totes les caselles vàlides. */
+    private final long[] valides;
+    /** Caselles a distància hexagonal 1..k: radi[k-1][cell]. */
+    private final int[][][] radi;
+    /** Màscares de {@link #radi}: radiMask[k-1][cell]. */
+    private final long[][][] radiMask;
+    /** Caselles a distància de Manhattan 1..k: manhattan[k-1][cell]. */
+    private final int[][][] manhattan;
+    /** Màscares de {@link #manhattan}: manhattanMask[k-1][cell]. */
+    private final long[][][] manhattanMask;
+
+    /**
+     * Construeix les taules per a una mida de costat.
+     *
+     * @param n Mida del costat de l'hexàgon
+     */
+    private HexTopology(int n) {
+        this.n = n;
+        this.squareSize = 2 * n - 1;
+
+        this.index = new int[squareSize * squareSize];
+        int comptador = 0;
+        for (int x = 0; x < squareSize; x++) {
+            for (int y = 0; y < squareSize; y++) {
+                index[x * squareSize + y] = dinsHexagon(x, y) ? comptador++ : FORA;
+            }
+        }
+        this.numCells = comptador;
+        this.words = (numCells + 63) >>> 6;
+
+        this.cellX = new int[numCells];
+        this.cellY = new int[numCells];
+        for (int x = 0; x < squareSize; x++) {
+            for (int y = 0; y < squareSize; y++) {
+                int cell = index[x * squareSize + y];
+                if (cell != FORA) {
+                    cellX[cell] = x;
+                    cellY[cell] = y;
+                }
+            }
+        }
+
+        this.valides = new long[words];
+        this.veins = new int[numCells * NUM_DIRS];
+        this.veinsMask = new long[numCells][words];
+        Dir[] dirs = Dir.values();
+        for (int cell = 0; cell < numCells; cell++) {
+            valides[cell >>> 6] |= 1L << cell;
+            for (int d = 0; d < NUM_DIRS; d++) {
+                Point adj = dirs[d].add(new Point(cellX[cell], cellY[cell]));
+                int vei = getIndex(adj.x, adj.y);
+                veins[cell * NUM_DIRS + d] = vei;
+                if (vei != FORA) {
+                    veinsMask[cell][vei >>> 6] |= 1L << vei;
+                }
+            }
+        }
+
+        this.radi = new int[MAX_RADI][numCells][];
+        this.radiMask = new long[MAX_RADI][numCells][];
+        this.manhattan = new int[MAX_RADI][numCells][];
+        this.manhattanMask = new long[MAX_RADI][numCells][];
+        int[] distancia = new int[numCells];
+        int[] cua = new int[numCells];
+        int[] llista = new int[numCells];
+        for (int cell = 0; cell < numCells; cell++) {
+            // BFS fins a MAX_RADI: les caselles surten ordenades per distància
+            Arrays.fill(distancia, -1);
+            distancia[cell] = 0;
+            int cap = 0;
+            int fi = 0;
+            cua[fi++] = cell;
+            while (cap < fi) {
+                int actual = cua[cap++];
+                if (distancia[actual] == MAX_RADI) continue;
+                for (int d = 0; d < NUM_DIRS; d++) {
+                    int v = veins[actual * NUM_DIRS + d];
+                    if (v != FORA && distancia[v] < 0) {
+                        distancia[v] = distancia[actual] + 1;
+                        cua[fi++] = v;
+                    }
+                }
+            }
+            for (int k = 1; k <= MAX_RADI; k++) {
+                int count = 0;
+                for (int i = 1; i < fi && distancia[cua[i]] <= k; i++) {
+                    llista[count++] = cua[i];
+                }
+                radi[k - 1][cell] = Arrays.copyOf(llista, count);
+                radiMask[k - 1][cell] = mascara(radi[k - 1][cell]);
+
+                count = 0;
+                for (int dist = 1; dist <= k; dist++) {
+                    for (int dx = -dist; dx <= dist; dx++) {
+                        int dy = dist - Math.abs(dx);
+                        int v = getIndex(cellX[cell] + dx, cellY[cell] + dy);
+                        if (v != FORA) llista[count++] = v;
+                        if (dy != 0) {
+                            v = getIndex(cellX[cell] + dx, cellY[cell] - dy);
+                            if (v != FORA) llista[count++] = v;
+                        }
+                    }
+                }
+                manhattan[k - 1][cell] = Arrays.copyOf(llista, count);
+                manhattanMask[k - 1][cell] = mascara(manhattan[k - 1][cell]);
+            }
+        }
+    }
+
+    /**
+     * Construeix la màscara de bits d'una llista de caselles.
+     */
+    private long[] mascara(int[] cells) {
+        long[] m = new long[words];
+        for (int c : cells) {
+            m[c >>> 6] |= 1L << c;
+        }
+        return m;
+    }
+
+    /**
+     * Obté la topologia d'una mida de costat (compartida i immutable).
+     *
+     * @param n Mida del costat de l'hexàgon
+     * @return Topologia per a aquesta mida
+     * @throws IllegalArgumentException si la mida és negativa
+     */
+    public static HexTopology of(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Mida de tauler no vàlida: " + n);
+        }
+        HexTopology[] c = cache;
+        HexTopology t = n < c.length ? c[n] : null;
+        if (t == null) {
+            synchronized (HexTopology.class) {
+                c = cache;
+                if (n >= c.length) {
+                    c = Arrays.copyOf(c, Math.max(n + 1, c.length * 2));
+                }
+                t = c[n];
+                if (t == null) {
+                    t = new HexTopology(n);
+                    c[n] = t;
+                }
+                cache = c;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Comprova si una coordenada del quadrat pertany a l'hexàgon
+     * (mateix criteri que {@code GameStatus.isInBounds}).
+     */
+    private boolean dinsHexagon(int x, int y) {
+        if (y < 0 || y >= squareSize) return false;
+        int minX = Math.max(0, y - n + 1);
+        int maxX = Math.min(n + y, squareSize);
+        return minX <= x && x < maxX;
+    }
+
+    /** @return Mida del costat de l'hexàgon */
+    public int getSize() {
+        return n;
+    }
+
+    /** @return Mida del quadrat que conté l'hexàgon (2n-1) */
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    /** @return Nombre de caselles vàlides */
+    public int getNumCells() {
+        return numCells;
+    }
+
+    /** @return Nombre de paraules de 64 bits per bitboard */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * Obté l'índex dens d'una coordenada.
+     *
+     * @param x Coordenada x
+     * @param y Coordenada y
+     * @return Índex de la casella, o {@link #FORA} si no és del tauler
+     */
+    public int getIndex(int x, int y) {
+        if (x < 0 || y < 0 || x >= squareSize || y >= squareSize) return FORA;
+        return index[x * squareSize + y];
+    }
+
+    /**
+     * Obté l'índex dens d'un punt.
+     *
+     * @param p Punt del tauler
+     * @return Índex de la casella, o {@link #FORA} si no és del tauler
+     */
+    public int getIndex(Point p) {
+        return getIndex(p.x, p.y);
+    }
+
+    /** @return Coordenada x de la casella */
+    public int getX(int cell) {
+        return cellX[cell];
+    }
+
+    /** @return Coordenada y de la casella */
+    public int getY(int cell) {
+        return cellY[cell];
+    }
+
+    /**
+     * Retorna un punt nou amb les coordenades de la casella.
+     *
+     * @param cell Índex de la casella
+     * @return Punt (x, y) de la casella
+     */
+    public Point toPoint(int cell) {
+        return new Point(cellX[cell], cellY[cell]);
+    }
+
+    /**
+     * Obté el veí d'una casella en una direcció (ordre de {@code Dir.values()}).
+     *
+     * @param cell Índex de la casella
+     * @param dir Direcció (0..5)
+     * @return Índex del veí, o {@link #FORA}
+     */
+    public int getVei(int cell, int dir) {
+        return veins[cell * NUM_DIRS + dir];
+    }
+
+    /**
+     * Taula plana de veïns ({@code veins[cell*6+d]}). No s'ha de modificar.
+     *
+     * @return Taula de veïns amb {@link #FORA} com a sentinella
+     */
+    public int[] getVeins() {
+        return veins;
+    }
+
+    /**
+     * Màscara de bits dels veïns d'una casella. No s'ha de modificar.
+     *
+     * @param cell Índex de la casella
+     * @return Bitboard dels veïns
+     */
+    public long[] getVeinsMask(int cell) {
+        return veinsMask[cell];
+    }
+
+    /**
+     * Caselles a distància hexagonal entre 1 i k (la casella no s'hi inclou),
+     * ordenades per distància. No s'ha de modificar.
+     *
+     * @param cell Índex de la casella
+     * @param k Radi (1..{@link #MAX_RADI})
+     * @return Índexs de les caselles del veïnatge
+     */
+    public int[] getRadi(int cell, int k) {
+        return radi[k - 1][cell];
+    }
+
+    /**
+     * Màscara de {@link #getRadi(int, int)}. No s'ha de modificar.
+     *
+     * @param cell Índex de la casella
+     * @param k Radi (1..{@link #MAX_RADI})
+     * @return Bitboard del veïnatge
+     */
+    public long[] getRadiMask(int cell, int k) {
+        return radiMask[k - 1][cell];
+    }
+
+    /**
+     * Caselles a distància de Manhattan |dx|+|dy| entre 1 i k, ordenades per
+     * distància. No s'ha de modificar.
+     *
+     * @param cell Índex de la casella
+     * @param k Radi (1..{@link #MAX_RADI})
+     * @return Índexs de les caselles del veïnatge
+     */
+    public int[] getManhattan(int cell, int k) {
+        return manhattan[k - 1][cell];
+    }
+
+    /**
+     * Màscara de {@link #getManhattan(int, int)}. No s'ha de modificar.
+     *
+     * @param cell Índex de la casella
+     * @param k Radi (1..{@link #MAX_RADI})
+     * @return Bitboard del veïnatge
+     */
+    public long[] getManhattanMask(int cell, int k) {
+        return manhattanMask[k - 1][cell];
+    }
+
+    /**
+     * Distància de Manhattan entre dues caselles.
+     *
+     * @param a Índex de la primera casella
+     * @param b Índex de la segona casella
+     * @return |xa-xb| + |ya-yb|
+     */
+    public int manhattan(int a, int b) {
+        return Math.abs(cellX[a] - cellX[b]) + Math.abs(cellY[a] - cellY[b]);
+    }
+
+    /**
+     * Màscara de totes les caselles vàlides. No s'ha de modificar.
+     *
+     * @return Bitboard de caselles vàlides
+     */
+    public long[] getValides() {
+        return valides;
+    }
+}
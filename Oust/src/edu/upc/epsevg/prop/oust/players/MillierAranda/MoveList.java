@@ -0,0 +1,161 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Llista de moviments codificats com a índexs de casella ({@link HexTopology}).
+ *
+ * <p>És un {@code int[]} reutilitzable: la cerca en té una per nivell i la
+ * buida amb {@link #clear()} en lloc de crear-ne de noves, de manera que el
+ * bucle intern no genera cap objecte. Els moviments només es converteixen a
+ * {@link Point} amb {@link #toPoints(HexTopology)} quan cal retornar el camí
+ * final al framework.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class MoveList {
+
+    /** Caselles de la llista. */
+    private int[] cells;
+    /** Nombre d'elements vàlids. */
+    private int size;
+
+    /**
+     * Crea una llista buida.
+     *
+     * @param capacitat Capacitat inicial (normalment el nombre de caselles)
+     */
+    public MoveList(int capacitat) {
+        this.cells = new int[Math.max(capacitat, 1)];
+        this.size = 0;
+    }
+
+    /** Buida la llista sense alliberar memòria. */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Afegeix una casella al final.
+     *
+     * @param cell Índex de la casella
+     */
+    public void add(int cell) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        cells[size++] = cell;
+    }
+
+    /**
+     * @param i Posició dins la llista
+     * @return Casella a la posició i
+     */
+    public int get(int i) {
+        return cells[i];
+    }
+
+    /** @return Nombre de moviments */
+    public int size() {
+        return size;
+    }
+
+    /** @return true si no hi ha cap moviment */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Vector intern, per omplir-lo directament (p. ex. amb
+     * {@link BitboardPosition#generateMoves(int[])}) i fixar després la mida
+     * amb {@link #setSize(int)}.
+     *
+     * @param capacitat Capacitat mínima necessària
+     * @return Vector intern de caselles
+     */
+    public int[] buffer(int capacitat) {
+        if (cells.length < capacitat) {
+            cells = Arrays.copyOf(cells, capacitat);
+        }
+        return cells;
+    }
+
+    /**
+     * Fixa el nombre d'elements vàlids després d'omplir {@link #buffer(int)}.
+     *
+     * @param size Nombre d'elements
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Substitueix el contingut per una còpia d'una altra llista.
+     *
+     * @param other Llista a copiar
+     */
+    public void copyFrom(MoveList other) {
+        buffer(other.size);
+        System.arraycopy(other.cells, 0, cells, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Ordena la llista de forma estable per una clau precalculada per casella
+     * (de menor a major). Les llistes són curtes i sovint gairebé ordenades,
+     * per això s'usa inserció directa.
+     *
+     * @param clau Clau de cada casella, indexada per casella
+     */
+    public void sortByKey(int[] clau) {
+        for (int i = 1; i < size; i++) {
+            int cell = cells[i];
+            int k = clau[cell];
+            int j = i - 1;
+            while (j >= 0 && clau[cells[j]] > k) {
+                cells[j + 1] = cells[j];
+                j--;
+            }
+            cells[j + 1] = cell;
+        }
+    }
+
+    /**
+     * Porta una casella al principi de la llista mantenint l'ordre relatiu de
+     * la resta. Si la casella no hi és, la llista no canvia.
+     *
+     * @param cell Casella a avançar
+     * @return true si la casella era a la llista
+     */
+    public boolean moveToFront(int cell) {
+        for (int i = 0; i < size; i++) {
+            if (cells[i] == cell) {
+                System.arraycopy(cells, 0, cells, 1, i);
+                cells[0] = cell;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converteix la llista a punts del tauler.
+     *
+     * @param topo Topologia del tauler
+     * @return Llista nova de punts
+     */
+    public List<Point> toPoints(HexTopology topo) {
+        List<Point> punts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            punts.add(topo.toPoint(cells[i]));
+        }
+        return punts;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+
+/**
+ * Enumerador de torns complets (perft) per mesurar el rendiment pur de la
+ * generació de moviments i de les regles, sense soroll de l'heurística ni de la
+ * cerca.
+ *
+ * <p>Un torn complet és la seqüència de col·locacions d'un jugador fins que li
+ * passa el torn: zero o més captures seguides d'una col·locació sense captura,
+ * o bé una captura que acaba la partida. {@code perft(d)} compta les
+ * seqüències diferents de {@code d} torns complets des de la posició inicial;
+ * ordres diferents d'una mateixa cadena de captures compten com a torns
+ * diferents. Les partides acabades abans de la profunditat compten com una
+ * fulla.</p>
+ *
+ * <p>La versió ràpida fa servir {@link GameStatusTunned} amb fer/desfer sobre
+ * un sol estat. La de referència fa servir {@link GameStatus} del framework
+ * copiant l'estat a cada col·locació i detectant les captures pel recompte de
+ * pedres, de manera que no comparteix cap codi amb la ràpida.</p>
+ *
+ * <p>Ús: {@code Perft <mida> <profunditat> [x,y ...] [-check]}. Les coordenades
+ * opcionals es juguen abans de començar; {@code -check} compara cada
+ * profunditat amb l'oracle.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public class Perft {
+
+    /** Col·locacions fetes per l'última crida (inclou les de dins de cadenes). */
+    private long pedresJugades;
+    /** Llistes de moviments per nivell de recursió. */
+    private MoveList[] moviments;
+
+    /**
+     * Compta les seqüències de torns complets fins a una profunditat.
+     *
+     * @param estat Estat de partida (es deixa igual en acabar)
+     * @param profunditat Nombre de torns complets
+     * @return Nombre de fulles
+     */
+    public long perft(GameStatusTunned estat, int profunditat) {
+        pedresJugades = 0;
+        // Les cadenes de captures allarguen la recursió; la llista creix si cal.
+        moviments = new MoveList[2 * profunditat + 1];
+        return perft(estat, profunditat, 0);
+    }
+
+    /** @return Col·locacions fetes per l'última crida a {@link #perft} */
+    public long getStonesPlayed() {
+        return pedresJugades;
+    }
+
+    /**
+     * Recorre totes les col·locacions del jugador actual. Les captures
+     * continuen el mateix torn i la resta el tanquen.
+     */
+    private long perft(GameStatusTunned estat, int profunditat, int nivell) {
+        if (profunditat == 0 || estat.isGameOver()) {
+            return 1;
+        }
+        MoveList llista = llista(nivell, estat.getTopology().getNumCells());
+        estat.generateMoves(llista);
+        long total = 0;
+        for (int i = 0; i < llista.size(); i++) {
+            int marca = estat.getUndoDepth();
+            boolean captura = estat.placeStone(llista.get(i));
+            pedresJugades++;
+            if (captura && !estat.isGameOver()) {
+                total += perft(estat, profunditat, nivell + 1);
+            } else {
+                total += perft(estat, profunditat - 1, nivell + 1);
+            }
+            estat.unmakeTo(marca);
+        }
+        return total;
+    }
+
+    /** Llista del nivell, creada la primera vegada que es fa servir. */
+    private MoveList llista(int nivell, int capacitat) {
+        if (nivell >= moviments.length) {
+            MoveList[] nou = new MoveList[moviments.length * 2];
+            System.arraycopy(moviments, 0, nou, 0, moviments.length);
+            moviments = nou;
+        }
+        if (moviments[nivell] == null) {
+            moviments[nivell] = new MoveList(capacitat);
+        }
+        return moviments[nivell];
+    }
+
+    /**
+     * Perft de referència sobre el {@link GameStatus} del framework.
+     *
+     * @param gs Estat de partida (no es modifica)
+     * @param profunditat Nombre de torns complets
+     * @return Nombre de fulles
+     */
+    public static long perftReferencia(GameStatus gs, int profunditat) {
+        if (profunditat == 0 || gs.isGameOver()) {
+            return 1;
+        }
+        long total = 0;
+        for (Point p : gs.getMoves()) {
+            GameStatus fill = new GameStatus(gs);
+            PlayerType jugador = fill.getCurrentPlayer();
+            PlayerType enemic = jugador.opposite();
+            int abans = comptarPedres(fill, enemic);
+            fill.placeStone(p);
+            boolean captura = comptarPedres(fill, enemic) < abans;
+            if (captura && !fill.isGameOver()) {
+                total += perftReferencia(fill, profunditat);
+            } else {
+                total += perftReferencia(fill, profunditat - 1);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Compta les pedres d'un jugador recorrent el tauler.
+     */
+    private static int comptarPedres(GameStatus gs, PlayerType jugador) {
+        int compte = 0;
+        int costat = gs.getSquareSize();
+        for (int x = 0; x < costat; x++) {
+            for (int y = 0; y < costat; y++) {
+                if (gs.getColor(x, y) == jugador) {
+                    compte++;
+                }
+            }
+        }
+        return compte;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Ús: Perft <mida> <profunditat> [x,y ...] [-check]");
+            return;
+        }
+        int mida = Integer.parseInt(args[0]);
+        int profunditat = Integer.parseInt(args[1]);
+        boolean comprovar = false;
+
+        GameStatus gs = new GameStatus(mida);
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-check")) {
+                comprovar = true;
+            } else {
+                String[] xy = args[i].split(",");
+                gs.placeStone(new Point(Integer.parseInt(xy[0]), Integer.parseInt(xy[1])));
+            }
+        }
+
+        GameStatusTunned estat = new GameStatusTunned(gs);
+        Perft perft = new Perft();
+        for (int d = 1; d <= profunditat; d++) {
+            long inici = System.nanoTime();
+            long fulles = perft.perft(estat, d);
+            long nanos = Math.max(1, System.nanoTime() - inici);
+            long pedres = perft.getStonesPlayed();
+            String linia = String.format("perft(%d) = %d  pedres=%d  %.3f s  %.0f pedres/s",
+                    d, fulles, pedres, nanos / 1e9, pedres * 1e9 / nanos);
+            if (comprovar) {
+                long referencia = perftReferencia(gs, d);
+                linia += referencia == fulles ? "  [OK]" : "  [ERROR: referència " + referencia + "]";
+            }
+            System.out.println(linia);
+        }
+    }
+}
@@ -4,7 +4,6 @@
  */
 package edu.upc.epsevg.prop.oust.players.MillierAranda;
 
-import edu.upc.epsevg.prop.oust.Dir;
 import edu.upc.epsevg.prop.oust.GameStatus;
 import edu.upc.epsevg.prop.oust.players.MillierAranda.GameStatusTunned;
 import edu.upc.epsevg.prop.oust.IAuto;
@@ -14,6 +13,10 @@ import edu.upc.epsevg.prop.oust.PlayerType;
 import edu.upc.epsevg.prop.oust.SearchType;
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementació d'un jugador Minimax amb profunditat fixa i poda alpha-beta.
@@ -23,6 +26,11 @@ import java.util.*;
  *   <li><b>Poda Alpha-Beta:</b> Redueix l'espai de cerca eliminant branques innecessàries</li>
  *   <li><b>Taula de Transposició:</b> Evita recalcular estats ja avaluats</li>
  *   <li><b>Ordenació de Moviments:</b> Avalua primer els moviments més prometedors</li>
+ *   <li><b>Fer/Desfer:</b> Tota la cerca treballa sobre un únic estat mutable; cada
+ *       torn s'aplica i es desfà en tornar al pare, sense copiar l'estat per fill</li>
+ *   <li><b>Torns Complets:</b> Les cadenes de captures alternatives s'enumeren
+ *       amb un pressupost per node, i les que acaben a la mateixa posició es
+ *       cerquen una sola vegada</li>
  *   <li><b>Heurística Avançada:</b> Valora captures, control del centre, grups i vulnerabilitats</li>
  * </ul>
  * 
@@ -62,10 +70,22 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     private long nodesExplorats;
     
     /** 
-     * Taula de transposició per emmagatzemar estats ja avaluats.
-     * Clau: hashcode de l'estat, Valor: entrada amb valor i profunditat.
+     * Taula de transposició de mida fixa per emmagatzemar estats ja avaluats,
+     * indexada per la clau de Zobrist de 64 bits. Guarda valor, profunditat,
+     * tipus de cota i millor moviment. Es crea a la primera cerca.
      */
-    private Map<Integer, TranspositionEntry> taulaTransposicio;
+    private TranspositionTable taulaTransposicio;
+    /** Memòria de la taula de transposició, en MB. */
+    private final int midaTaulaMB;
+    /**
+     * Indica si aquest motor gestiona la taula (edat i buidat). Els fils
+     * ajudants de Lazy SMP la comparteixen amb el principal i no la toquen.
+     */
+    private final boolean gestionaTaula;
+    /** Llavor de la pertorbació de l'ordenació; 0 per no pertorbar-la. */
+    private long llavorOrdre;
+    /** Soroll petit per casella que se suma al desempat de l'ordenació. */
+    private int[] sorollOrdre;
     
     /** 
      * Flag extern que permet a PlayerMiniMaxIDS interrompre l'execució.
@@ -73,6 +93,131 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      */
     private volatile boolean externalTimeout;
     
+    /** Llistes de moviments reutilitzades, una per nivell de l'arbre. */
+    private MoveList[] movimentsPerNivell;
+    /** Llistes de moviments segurs (filtrats), una per nivell de l'arbre. */
+    private MoveList[] segursPerNivell;
+    /** Captures disponibles durant la construcció d'una cadena de captures. */
+    private MoveList capturesCadena;
+    /** No-captures disponibles durant la construcció d'una cadena de captures. */
+    private MoveList quietsCadena;
+    /** Captures de la cadena que no són contra-atacables. */
+    private MoveList capturesSegures;
+    /** Moviments no-captura segurs candidats a tancar el torn. */
+    private MoveList quietsSegurs;
+    /** Captures de l'estat avaluat per l'heurística. */
+    private MoveList capturesAvaluacio;
+    /** No-captures de l'estat avaluat per l'heurística. */
+    private MoveList quietsAvaluacio;
+    /** Distància de Manhattan de cada casella al punt (n/2, n/2), per ordenar. */
+    private int[] distanciaCentre;
+    /** Topologia per a la qual s'han preparat les llistes. */
+    private HexTopology topologia;
+    
+    /** Clau d'ordenació de cada casella, reutilitzada per tots els nivells. */
+    private int[] clauOrdre;
+    /** Dos moviments assassins (killer) per nivell: no-captures que han provocat un tall. */
+    private int[][] assassins;
+    /** Taula d'història [color][casella]: suma de profunditat² dels talls de cada moviment. */
+    private int[][] historia;
+    /** Nodes interiors amb tall beta a l'última crida. */
+    private long talls;
+    /** Talls beta produïts pel primer moviment explorat a l'última crida. */
+    private long tallsPrimerMoviment;
+    
+    /** Marges de futilitat per profunditat restant 1, 2, ...; null per desactivar-la. */
+    private int[] margesFutilitat;
+    /** Profunditat restant mínima per reduir moviments tardans. */
+    private int profunditatMinimaLMR;
+    /** Moviments de cada node que es cerquen sempre sense reducció. */
+    private int movimentsCompletsLMR;
+    /** Taula de reduccions [profunditat][número de moviment]. */
+    private final int[][] reduccioLMR = new int[64][64];
+    /** Reduccions que han superat alpha i s'han hagut de tornar a cercar a l'última crida. */
+    private long reduccionsFallides;
+    
+    /** Col·locacions màximes de la cerca de quiescència; 0 la desactiva. */
+    private int quiescenciaMaxima;
+    /** Captures per ply de la cerca de quiescència. */
+    private MoveList[] capturesQuiescencia;
+    /** Nodes de quiescència (inclosos a {@link #nodesExplorats}) a l'última crida. */
+    private long nodesQuiescencia;
+    
+    /** Torns complets de cada nivell, amb el conjunt de posicions ja vistes al node. */
+    private TurnList[] tornsPerNivell;
+    /** Camí del torn que s'està enumerant. */
+    private MoveList camiTorn;
+    /** Captures per col·locació de la cadena que s'està enumerant. */
+    private MoveList[] capturesTorn;
+    /** No-captures per col·locació de la cadena que s'està enumerant. */
+    private MoveList[] quietsTorn;
+    /** Col·locacions extra per node per enumerar cadenes de captures alternatives. */
+    private int pressupostTorn;
+    /** Col·locacions que queden de l'enumeració en curs. */
+    private int pressupostRestant;
+    /** Torns descartats per acabar en una posició ja vista al node a l'última crida. */
+    private long tornsRepetits;
+    
+    /** Fils per cercar els moviments de l'arrel en paral·lel; 1 = seqüencial. */
+    private int filsArrel = 1;
+    /** Pool de fils de la cerca paral·lela de l'arrel (es crea en cercar). */
+    private ForkJoinPool poolArrel;
+    /**
+     * Motors de les tasques de l'arrel: un per fil del pool, més els que
+     * s'hagin creat quan no n'hi havia cap de lliure. Es substitueix sencer
+     * en créixer.
+     */
+    private volatile PlayerMiniMax[] motorsArrel;
+    /** Motors lliures; cada tasca n'agafa un i el torna en acabar. */
+    private ConcurrentLinkedQueue<PlayerMiniMax> motorsLliures;
+    
+    /** Fils per repartir els germans petits dels nodes interns; 1 = sense dividir. */
+    private int filsDivisio = 1;
+    /** Profunditat restant mínima perquè un node reparteixi els germans petits. */
+    private int profunditatMinimaDivisio = PROFUNDITAT_MINIMA_DIVISIO;
+    /** Pool de les tasques dels germans petits (compartit amb els motors de les tasques). */
+    private ForkJoinPool poolDivisio;
+    /** Motors lliures per a les tasques; se'n creen més si les divisions s'aniuen. */
+    private ConcurrentLinkedQueue<PlayerMiniMax> motorsDivisio;
+    /** Punt de divisió de la tasca que cerca aquest motor, o null si no en cerca cap. */
+    private SplitPoint puntDivisio;
+    /** Nodes on s'han repartit els germans petits a l'última cerca. */
+    private long puntsDivisio;
+    /** Tasques creades als punts de divisió a l'última cerca. */
+    private long tasquesDivisio;
+    /** Nodes explorats per la tasca més gran de l'última cerca. */
+    private long nodesTascaMaxima;
+    
+    /** Clau de la posició de l'última cerca; si canvia, comença una cerca nova a la taula. */
+    private long clauArrel;
+    /** Jugador per al qual són els valors de la taula (es buida si canvia). */
+    private PlayerType jugadorTaula;
+    /** Valor de cada moviment arrel a la iteració en curs. */
+    private int[] valorArrelActual;
+    /** Clau d'ordenació de l'arrel: menys el valor a l'última iteració completa. */
+    private int[] ordreArrel;
+    /** Indica si {@link #ordreArrel} correspon a la posició {@link #clauArrel}. */
+    private boolean hiHaOrdreArrel;
+    /**
+     * A l'última crida interrompuda, la passada de l'arrel ja havia cercat
+     * sencer el primer torn (el millor de la iteració anterior) i després un
+     * torn que el supera: el camí retornat és millor que l'anterior.
+     */
+    private boolean resultatSalvable;
+    /** La passada actual de l'arrel comença pel millor moviment d'una cerca anterior. */
+    private boolean arrelOrdenada;
+    /**
+     * Valor de l'arrel a l'última iteració completa de profunditat parella [0]
+     * i senar [1], per centrar la finestra d'aspiració.
+     */
+    private final int[] valorArrelParitat = new int[2];
+    /** Indica si {@link #valorArrelParitat} és vàlid per a l'arrel actual. */
+    private final boolean[] hiHaValorParitat = new boolean[2];
+    /** Amplades successives de la finestra d'aspiració; null per cercar sempre amb la finestra completa. */
+    private int[] passosAspiracio;
+    /** Re-cerques de l'arrel per valors fora de la finestra d'aspiració a l'última crida. */
+    private int reCerquesAspiracio;
+    
     /** 
      * Valor heurístic que representa una victòria garantida.
      * S'utilitza per aturar la cerca quan es detecta un estat guanyador.
@@ -83,6 +228,36 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * S'utilitza per aturar la cerca quan es detecta un estat perdedor.
      */
     private static final int DERROTA = -1000000;
+    /** Marges de futilitat per defecte (profunditat restant 1 i 2). */
+    public static final int[] MARGES_FUTILITAT = {2000, 8000};
+    /** Profunditat restant mínima per defecte per reduir moviments tardans. */
+    public static final int LMR_PROFUNDITAT_MINIMA = 3;
+    /** Moviments per defecte que es cerquen sempre sense reducció. */
+    public static final int LMR_MOVIMENTS_COMPLETS = 3;
+    /** Divisor per defecte de la taula de reduccions. */
+    public static final double LMR_DIVISOR = 2.25;
+    /**
+     * Col·locacions màximes per defecte de la cerca de quiescència: desactivada.
+     * Amb temps fix el cost dels nodes de captura no es compensa (vegeu
+     * {@link #setQuiescenceDepth(int)}).
+     */
+    public static final int QUIESCENCIA_PER_DEFECTE = 0;
+    /** Col·locacions extra per defecte per enumerar cadenes de captures a cada node. */
+    public static final int PRESSUPOST_TORN = 64;
+    /**
+     * Profunditat restant mínima per defecte d'un punt de divisió: més a prop
+     * de les fulles, crear la tasca costa més que cercar el germà.
+     */
+    public static final int PROFUNDITAT_MINIMA_DIVISIO = 4;
+    
+    /** Límit de la taula d'història; en arribar-hi es divideix tota per dos. */
+    private static final int MAX_HISTORIA = 1 << 20;
+    
+    /** 
+     * Cota de les finestres de cerca. Més gran que qualsevol valoració i
+     * prou lluny de Integer.MIN_VALUE perquè canviar-la de signe no desbordi.
+     */
+    private static final int INFINIT = 1 << 30;
     
     /**
      * Constructor OBLIGATORI del jugador Minimax.
@@ -90,10 +265,344 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * @param profunditatMaxima Profunditat màxima de cerca de l'algorisme
      */
     public PlayerMiniMax(int profunditatMaxima) {
+        this(profunditatMaxima, TranspositionTable.MIDA_PER_DEFECTE_MB);
+    }
+    
+    /**
+     * Constructor amb la mida de la taula de transposició.
+     * 
+     * @param profunditatMaxima Profunditat màxima de cerca de l'algorisme
+     * @param midaTaulaMB Memòria de la taula de transposició, en MB
+     */
+    public PlayerMiniMax(int profunditatMaxima, int midaTaulaMB) {
+        this(profunditatMaxima, midaTaulaMB, null, true);
+    }
+    
+    /**
+     * Constructor amb una taula de transposició compartida entre diversos
+     * motors que cerquen alhora (Lazy SMP, vegeu {@link PlayerMiniMaxIDS}).
+     * 
+     * @param profunditatMaxima Profunditat màxima de cerca de l'algorisme
+     * @param taula Taula compartida
+     * @param gestionaTaula true només per al motor principal, que fa envellir
+     *        i buida la taula entre cerques; els ajudants només la fan servir
+     */
+    PlayerMiniMax(int profunditatMaxima, TranspositionTable taula, boolean gestionaTaula) {
+        this(profunditatMaxima, TranspositionTable.MIDA_PER_DEFECTE_MB, taula, gestionaTaula);
+    }
+    
+    private PlayerMiniMax(int profunditatMaxima, int midaTaulaMB, TranspositionTable taula, boolean gestionaTaula) {
         this.name = "MiniMax";
         this.profunditatMaxima = profunditatMaxima;
-        this.taulaTransposicio = new HashMap<>();
+        this.midaTaulaMB = midaTaulaMB;
+        this.taulaTransposicio = taula;
+        this.gestionaTaula = gestionaTaula;
         this.externalTimeout = false;
+        setFutilityMargins(MARGES_FUTILITAT);
+        setLateMoveReduction(LMR_PROFUNDITAT_MINIMA, LMR_MOVIMENTS_COMPLETS, LMR_DIVISOR);
+        setQuiescenceDepth(QUIESCENCIA_PER_DEFECTE);
+        setTurnBudget(PRESSUPOST_TORN);
+    }
+    
+    /**
+     * Canvia la profunditat màxima de les properes cerques.
+     * 
+     * <p>Permet a {@link PlayerMiniMaxIDS} reutilitzar un sol motor per a totes
+     * les iteracions i tots els torns: la taula de transposició i l'ordre de
+     * l'arrel es conserven entre crides a {@link #move(GameStatus)}.</p>
+     * 
+     * @param profunditatMaxima Nova profunditat màxima
+     */
+    public void setProfunditat(int profunditatMaxima) {
+        this.profunditatMaxima = profunditatMaxima;
+        if (movimentsPerNivell != null && movimentsPerNivell.length < profunditatMaxima + 1) {
+            movimentsPerNivell = Arrays.copyOf(movimentsPerNivell, profunditatMaxima + 1);
+            segursPerNivell = Arrays.copyOf(segursPerNivell, profunditatMaxima + 1);
+            tornsPerNivell = Arrays.copyOf(tornsPerNivell, profunditatMaxima + 1);
+            int abans = assassins.length;
+            assassins = Arrays.copyOf(assassins, profunditatMaxima + 1);
+            for (int i = abans; i < assassins.length; i++) {
+                assassins[i] = new int[] {-1, -1};
+            }
+        }
+    }
+    
+    /**
+     * Configura la poda de futilitat dels moviments tranquils prop de les fulles.
+     * 
+     * <p>Amb profunditat restant {@code d <= marges.length}, si la valoració
+     * estàtica del node més {@code marges[d - 1]} no arriba a alpha, només es
+     * cerquen el primer moviment, les captures i el de la taula de
+     * transposició. No s'aplica amb valors de victòria a la finestra ni quan
+     * un dels jugadors no té pedres (obertura).</p>
+     * 
+     * @param marges Marges per profunditat restant 1, 2, ..., o null per desactivar-la
+     */
+    public void setFutilityMargins(int[] marges) {
+        this.margesFutilitat = marges == null ? null : marges.clone();
+    }
+    
+    /**
+     * Configura la reducció de moviments tardans (LMR).
+     * 
+     * <p>Amb profunditat restant {@code d >= profunditatMinima}, el moviment
+     * número {@code m >= movimentsComplets} d'un node es cerca amb una
+     * reducció de {@code 0.5 + ln(d)·ln(m) / divisor} plies si és tranquil
+     * (no captura, ni de la taula, ni assassí). Si el resultat supera alpha,
+     * es torna a cercar a la profunditat completa.</p>
+     * 
+     * <p>La reducció s'arrodoneix a un nombre parell de plies: l'heurística
+     * valora molt diferent els estats on tira el jugador propi i els de
+     * l'enemic, i una reducció senar canviaria de paritat la fulla i gairebé
+     * sempre provocaria una re-cerca.</p>
+     * 
+     * @param profunditatMinima Profunditat restant mínima per reduir
+     * @param movimentsComplets Moviments de cada node que no es redueixen mai;
+     *        un valor negatiu desactiva les reduccions
+     * @param divisor Divisor de la taula (més gran, menys reducció)
+     */
+    public void setLateMoveReduction(int profunditatMinima, int movimentsComplets, double divisor) {
+        this.profunditatMinimaLMR = Math.max(2, profunditatMinima);
+        this.movimentsCompletsLMR = movimentsComplets < 0 ? Integer.MAX_VALUE : Math.max(1, movimentsComplets);
+        for (int d = 1; d < reduccioLMR.length; d++) {
+            for (int m = 1; m < reduccioLMR[d].length; m++) {
+                reduccioLMR[d][m] = (int) (0.5 + Math.log(d) * Math.log(m) / divisor);
+            }
+        }
+    }
+    
+    /**
+     * @return Reduccions tardanes que han superat alpha i s'han tornat a cercar
+     *         a l'última crida a {@link #move(GameStatus)}
+     */
+    public long getLateMoveReSearches() {
+        return reduccionsFallides;
+    }
+    
+    /**
+     * Configura la cerca de quiescència de les fulles.
+     * 
+     * <p>A profunditat 0, en comptes de retornar directament l'heurística, el
+     * jugador que tira pot continuar fent captures (que li tornen el torn)
+     * fins a aquest nombre de col·locacions. Amb 0 la fulla és la valoració
+     * estàtica.</p>
+     * 
+     * <p>Fa les fulles més estables, però cada fulla amb captures multiplica
+     * els nodes (unes 5 vegades en posicions de mig joc) i a 1 s per jugada
+     * el motor arriba menys profund. Per això està desactivada per defecte.
+     * Un bon valor per provar-la és 8.</p>
+     * 
+     * @param colocacions Col·locacions màximes per fulla (0 per desactivar-la)
+     */
+    public void setQuiescenceDepth(int colocacions) {
+        this.quiescenciaMaxima = Math.max(0, colocacions);
+        this.capturesQuiescencia = new MoveList[quiescenciaMaxima + 1];
+    }
+    
+    /**
+     * @return Nodes de quiescència a l'última crida a {@link #move(GameStatus)}
+     *         (també inclosos al total de nodes)
+     */
+    public long getQuiescenceNodes() {
+        return nodesQuiescencia;
+    }
+    
+    /**
+     * Configura l'enumeració de torns complets.
+     * 
+     * <p>Un torn és una cadena de captures que acaba amb una col·locació
+     * tranquil·la. Per a cada primera col·locació la cerca explora el torn que
+     * tria la política de continuació ({@link #aplicarMovimentComplet}) i, si
+     * la primera col·locació captura, fins a aquest nombre de col·locacions
+     * per node enumerant les altres cadenes: continuar amb qualsevol altra
+     * captura o tancar el torn abans. Les cadenes que arriben a una posició
+     * ja vista al node (les mateixes captures en un altre ordre, o des d'una
+     * altra primera col·locació) no es tornen a explorar.</p>
+     * 
+     * @param colocacions Col·locacions extra per node (0 per explorar només la
+     *        cadena de la política)
+     */
+    public void setTurnBudget(int colocacions) {
+        this.pressupostTorn = Math.max(0, colocacions);
+    }
+    
+    /**
+     * Pertorba l'ordenació dels moviments amb un soroll petit per casella,
+     * que només decideix entre moviments de la mateixa etapa i valor. Fa que
+     * els fils ajudants de Lazy SMP recorrin l'arbre en un ordre diferent del
+     * principal i omplin la taula compartida amb branques diferents.
+     * 
+     * @param llavor Llavor del soroll (0 per no pertorbar l'ordenació)
+     */
+    void setOrderingSeed(long llavor) {
+        this.llavorOrdre = llavor;
+        if (topologia != null) {
+            calcularSorollOrdre(topologia.getNumCells());
+        }
+    }
+    
+    /**
+     * Omple {@link #sorollOrdre} a partir de {@link #llavorOrdre}. El soroll
+     * (0-15) més la distància al centre caben als 6 bits baixos de la clau
+     * d'ordenació.
+     * 
+     * @param numCells Caselles del tauler
+     */
+    private void calcularSorollOrdre(int numCells) {
+        sorollOrdre = new int[numCells];
+        if (llavorOrdre != 0) {
+            Random r = new Random(llavorOrdre);
+            for (int cell = 0; cell < numCells; cell++) {
+                sorollOrdre[cell] = r.nextInt(16);
+            }
+        }
+    }
+    
+    /**
+     * Activa la cerca paral·lela dels moviments de l'arrel en un
+     * {@link ForkJoinPool}.
+     * 
+     * <p>El primer torn de l'arrel es cerca en aquest fil per obtenir una
+     * cota; la resta es reparteixen entre els fils del pool. Cada tasca fa
+     * servir un motor propi (llistes, assassins, història i comptadors) sobre
+     * una còpia de l'estat, i tots comparteixen la taula de transposició i el
+     * millor valor trobat, que va estrenyent la finestra de les tasques que
+     * comencen més tard.</p>
+     * 
+     * @param fils Fils del pool (1 per cercar l'arrel seqüencialment)
+     */
+    public void setRootThreads(int fils) {
+        fils = Math.max(1, fils);
+        if (fils == filsArrel) {
+            return;
+        }
+        if (poolArrel != null) {
+            poolArrel.shutdown();
+        }
+        filsArrel = fils;
+        poolArrel = null;
+        motorsArrel = null;
+        motorsLliures = null;
+    }
+    
+    /** @return Fils de la cerca paral·lela de l'arrel (1 = seqüencial) */
+    public int getRootThreads() {
+        return filsArrel;
+    }
+    
+    /**
+     * Activa la divisió dels nodes interns (Young Brothers Wait).
+     * 
+     * <p>Quan un node amb prou profunditat restant ja ha cercat el primer
+     * fill (el germà gran), la resta de germans es reparteixen com a tasques
+     * d'un {@link ForkJoinPool} amb robatori de feina. Les tasques comparteixen
+     * l'alpha del node: cada una cerca amb el millor valor trobat fins llavors,
+     * i quan una arriba a beta el punt es marca tallat i les altres (i les
+     * tasques dels punts niats a sota) s'aturen. Cada tasca fa servir un motor
+     * propi sobre una còpia de la posició; tots comparteixen la taula de
+     * transposició.</p>
+     * 
+     * @param fils Fils del pool (1 per no dividir)
+     */
+    public void setSplitThreads(int fils) {
+        fils = Math.max(1, fils);
+        if (fils == filsDivisio) {
+            return;
+        }
+        if (poolDivisio != null) {
+            poolDivisio.shutdown();
+        }
+        filsDivisio = fils;
+        poolDivisio = null;
+        motorsDivisio = null;
+    }
+    
+    /** @return Fils de la divisió dels nodes interns (1 = sense dividir) */
+    public int getSplitThreads() {
+        return filsDivisio;
+    }
+    
+    /**
+     * Canvia la profunditat restant mínima dels punts de divisió.
+     * 
+     * @param profunditat Profunditat mínima (per defecte
+     *        {@link #PROFUNDITAT_MINIMA_DIVISIO})
+     */
+    public void setMinimumSplitDepth(int profunditat) {
+        this.profunditatMinimaDivisio = Math.max(1, profunditat);
+    }
+    
+    /** @return Nodes on s'han repartit els germans petits a l'última cerca */
+    public long getSplitPoints() {
+        return puntsDivisio;
+    }
+    
+    /** @return Tasques dels punts de divisió de l'última cerca */
+    public long getSplitTasks() {
+        return tasquesDivisio;
+    }
+    
+    /** @return Nodes de la tasca més gran de l'última cerca (equilibri de la càrrega) */
+    public long getLargestSplitTaskNodes() {
+        return nodesTascaMaxima;
+    }
+    
+    /**
+     * @return Torns descartats per acabar en una posició ja vista al mateix
+     *         node a l'última crida a {@link #move(GameStatus)}
+     */
+    public long getDuplicateTurns() {
+        return tornsRepetits;
+    }
+    
+    /**
+     * Activa les finestres d'aspiració a l'arrel.
+     * 
+     * <p>Quan l'arrel és la mateixa que la de l'última cerca completa (una
+     * iteració nova d'aprofundiment iteratiu), la cerca comença amb la finestra
+     * {@code [v - passos[0], v + passos[0]]} al voltant del valor anterior
+     * {@code v}. Si el resultat cau fora, s'eixampla el costat que ha fallat
+     * amb {@code passos[1]}, {@code passos[2]}... i finalment fins a l'infinit.</p>
+     * 
+     * @param passos Amplades creixents de la finestra, o null per desactivar-les
+     */
+    public void setAspirationSteps(int[] passos) {
+        this.passosAspiracio = passos == null ? null : passos.clone();
+    }
+    
+    /**
+     * @return Re-cerques de l'arrel per finestres d'aspiració fallides a
+     *         l'última crida a {@link #move(GameStatus)}
+     */
+    public int getAspirationResearches() {
+        return reCerquesAspiracio;
+    }
+    
+    /**
+     * @return Valor de l'arrel de l'última cerca completa d'aquesta paritat de
+     *         profunditat (punt de vista del jugador propi); no té sentit si
+     *         la cerca s'ha interromput
+     */
+    public int getRootValue() {
+        return valorArrelParitat[profunditatMaxima & 1];
+    }
+    
+    /**
+     * Indica si el resultat d'una cerca interrompuda es pot fer servir.
+     * 
+     * <p>Quan la cerca s'interromp, el camí retornat és el millor dels torns
+     * de l'arrel que s'han acabat de cercar; els interromputs no compten. Si
+     * l'arrel començava pel millor moviment d'una cerca anterior (la
+     * iteració anterior de l'aprofundiment), s'ha cercat sencer i després
+     * un altre torn l'ha superat, el camí és millor que el de la iteració
+     * anterior encara que la profunditat no s'hagi acabat. La cerca
+     * paral·lela de l'arrel no ho indica mai.</p>
+     * 
+     * @return true si l'última crida interrompuda ha trobat un moviment
+     *         millor que el primer de l'arrel
+     */
+    public boolean hasSalvageableResult() {
+        return resultatSalvable;
     }
     
     /**
@@ -111,6 +620,12 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      */
     public void setExternalTimeout(boolean timeout) {
         this.externalTimeout = timeout;
+        PlayerMiniMax[] motors = motorsArrel;
+        if (motors != null) {
+            for (PlayerMiniMax m : motors) {
+                m.setExternalTimeout(timeout);
+            }
+        }
     }
     
     /**
@@ -172,175 +687,1191 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     @Override
     public PlayerMove move(GameStatus s) {
         nodesExplorats = 0;
+        reCerquesAspiracio = 0;
+        talls = 0;
+        tallsPrimerMoviment = 0;
+        reduccionsFallides = 0;
+        nodesQuiescencia = 0;
+        tornsRepetits = 0;
+        puntsDivisio = 0;
+        tasquesDivisio = 0;
+        nodesTascaMaxima = 0;
         jugadorPropi = s.getCurrentPlayer();
-        taulaTransposicio.clear();
         
         GameStatusTunned estat = new GameStatusTunned(s);
+        HexTopology topo = estat.getTopology();
+        preparar(topo);
+        iniciarCerca(estat);
+        if (filsDivisio > 1) {
+            prepararMotorsDivisio(estat);
+        }
         
-        List<Point> millorCami = new ArrayList<>();
+        MoveList millorCami = new MoveList(topo.getNumCells());
         int millorValor = Integer.MIN_VALUE;
         
-        List<Point> moviments = estat.getMoves();
+        MoveList moviments = llista(movimentsPerNivell, 0);
+        estat.generateMoves(moviments);
         
         if (moviments.isEmpty()) {
-            return new PlayerMove(millorCami, nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
+            return new PlayerMove(millorCami.toPoints(topo), nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
         }
         
         if (moviments.size() == 1) {
-            millorCami = construirCamiComplet(estat, moviments.get(0));
-            return new PlayerMove(millorCami, nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
+            construirCamiComplet(estat, moviments.get(0), millorCami);
+            return new PlayerMove(millorCami.toPoints(topo), nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
         }
         
-        // Ordenar i filtrar moviments
-        int centre = estat.getSize() / 2;
-        moviments.sort((p1, p2) -> {
-            int dist1 = Math.abs(p1.x - centre) + Math.abs(p1.y - centre);
-            int dist2 = Math.abs(p2.x - centre) + Math.abs(p2.y - centre);
-            return Integer.compare(dist1, dist2);
-        });
-        
-        moviments = filtrarMovimentsSegurs(estat, moviments);
+        // Filtrar i ordenar moviments; si és la mateixa posició que l'última
+        // cerca, s'explora primer el que va valer més a la iteració anterior.
+        moviments = filtrarMovimentsSegurs(estat, moviments, llista(segursPerNivell, 0));
+        ordenarMoviments(estat.getPosition(), moviments, 0, -1);
+        if (hiHaOrdreArrel) {
+            moviments.sortByKey(ordreArrel);
+        }
+        arrelOrdenada = hiHaOrdreArrel;
+        resultatSalvable = false;
+        
+        int torn = estat.getPosition().getTurn();
+        int alpha = -INFINIT;
+        int beta = INFINIT;
+        int pas = 0;
+        // El valor oscil·la entre profunditats parells i senars (l'últim torn
+        // és del jugador propi o de l'enemic), per això el centre és el de
+        // l'última iteració de la mateixa paritat si n'hi ha.
+        int paritat = profunditatMaxima & 1;
+        int valorArrelPrevi = hiHaValorParitat[paritat] ? valorArrelParitat[paritat] : valorArrelParitat[paritat ^ 1];
+        boolean aspiracio = passosAspiracio != null && passosAspiracio.length > 0
+                && (hiHaValorParitat[0] || hiHaValorParitat[1]);
+        if (aspiracio) {
+            alpha = Math.max(-INFINIT, valorArrelPrevi - passosAspiracio[0]);
+            beta = Math.min(INFINIT, valorArrelPrevi + passosAspiracio[0]);
+        }
         
-        for (Point mov : moviments) {
-            // Comprovar timeout abans de cada moviment
+        // Finestra d'aspiració: si el valor surt de la finestra, s'eixampla
+        // pel costat que ha fallat amb el pas següent (o fins a l'infinit) i
+        // es torna a cercar.
+        while (true) {
+            millorValor = cercarArrel(estat, moviments, alpha, beta, torn, millorCami);
             if (externalTimeout) {
                 break;
             }
+            if (millorValor <= alpha && alpha > -INFINIT) {
+                pas++;
+                alpha = pas < passosAspiracio.length ? Math.max(-INFINIT, valorArrelPrevi - passosAspiracio[pas]) : -INFINIT;
+            } else if (millorValor >= beta && beta < INFINIT) {
+                pas++;
+                beta = pas < passosAspiracio.length ? Math.min(INFINIT, valorArrelPrevi + passosAspiracio[pas]) : INFINIT;
+                // El moviment que ha superat beta s'explora primer a la nova cerca
+                moviments.moveToFront(millorCami.get(0));
+                arrelOrdenada = true;
+            } else {
+                break;
+            }
+            reCerquesAspiracio++;
+        }
+        
+        if (millorCami.isEmpty() && !moviments.isEmpty()) {
+            construirCamiComplet(estat, moviments.get(0), millorCami);
+        }
+        
+        if (!externalTimeout) {
+            desarOrdreArrel(moviments);
+            valorArrelParitat[profunditatMaxima & 1] = millorValor;
+            hiHaValorParitat[profunditatMaxima & 1] = true;
+        }
+        
+        return new PlayerMove(millorCami.toPoints(topo), nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
+    }
+    
+    /**
+     * Cerca tots els moviments de l'arrel amb una finestra [alpha, beta].
+     * 
+     * <p>PVS a l'arrel: el primer moviment amb la finestra completa i la resta
+     * amb una finestra nul·la que detecta valors >= que el millor (o que
+     * alpha), perquè els empats també s'han de conèixer per al desempat
+     * aleatori. Si un moviment arriba a beta la cerca s'atura (fail-high).</p>
+     * 
+     * @param estat Estat arrel (es deixa igual en acabar)
+     * @param moviments Moviments arrel ordenats
+     * @param alpha Cota inferior de la finestra
+     * @param beta Cota superior de la finestra
+     * @param torn Color del jugador propi
+     * @param millorCami Llista on es deixa el camí del millor moviment
+     * @return Valor del millor moviment; si és <= alpha o >= beta és només una cota
+     */
+    private int cercarArrel(GameStatusTunned estat, MoveList moviments, int alpha, int beta, int torn, MoveList millorCami) {
+        if (filsArrel > 1 && profunditatMaxima > 1) {
+            return cercarArrelParallel(estat, moviments, alpha, beta, torn, millorCami);
+        }
+        int millorValor = Integer.MIN_VALUE;
+        millorCami.clear();
+        TurnList torns = torns(0);
+        int pressupost = pressupostTorn;
+        int fill = 0;
+        int valorPrimer = Integer.MIN_VALUE;
+        boolean millorat = false;
+        
+        for (int i = 0; i < moviments.size() && millorValor < beta; i++) {
+            int mov = moviments.get(i);
+            valorArrelActual[mov] = Integer.MIN_VALUE;
+            pressupost = generarTorns(estat, mov, torns, pressupost);
             
-            GameStatusTunned nouEstat = new GameStatusTunned(estat);
-            List<Point> cami = construirCamiComplet(nouEstat, mov);
-            
-            int valor = minimax(nouEstat, profunditatMaxima - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
-            
-            if (valor == millorValor && Math.random() < 0.3) {
-                millorValor = valor;
-                millorCami = new ArrayList<>(cami);
+            for (int t = 0; t < torns.size(); t++) {
+                // Comprovar timeout abans de cada moviment
+                if (externalTimeout) {
+                    resultatSalvable = arrelOrdenada && millorat;
+                    return millorValor;
+                }
+                
+                int marca = estat.getUndoDepth();
+                torns.apply(t, estat);
+                
+                int valor;
+                if (fill == 0) {
+                    valor = cercarFill(estat, profunditatMaxima - 1, alpha, beta, torn, 1);
+                } else {
+                    int minim = Math.max(millorValor, alpha);
+                    valor = cercarFill(estat, profunditatMaxima - 1, minim - 1, minim, torn, 1);
+                    if (valor >= minim && valor < beta) {
+                        valor = cercarFill(estat, profunditatMaxima - 1, minim - 1, beta, torn, 1);
+                    }
+                }
+                estat.unmakeTo(marca);
+                if (externalTimeout) {
+                    // El valor del torn interromput no és real: no compta
+                    resultatSalvable = arrelOrdenada && millorat;
+                    return millorValor;
+                }
+                valorArrelActual[mov] = Math.max(valorArrelActual[mov], valor);
+                if (fill == 0) {
+                    valorPrimer = valor;
+                } else if (valor > Math.max(valorPrimer, alpha)) {
+                    // Valor exacte o cota inferior per sobre del primer torn
+                    millorat = true;
+                }
+                
+                if (fill > 0 && valor == millorValor && Math.random() < 0.3) {
+                    millorValor = valor;
+                    torns.copyTo(t, millorCami);
+                } else if (valor > millorValor) {
+                    millorValor = valor;
+                    torns.copyTo(t, millorCami);
+                }
+                fill++;
+                
+                if (millorValor >= beta) {
+                    break;
+                }
+            }
+        }
+        return millorValor;
+    }
+    
+    /**
+     * Versió paral·lela de {@link #cercarArrel}.
+     * 
+     * <p>Primer s'enumeren tots els torns de l'arrel. El primer es cerca en
+     * aquest fil amb la finestra [alpha, beta]; la resta són tasques del
+     * {@link ForkJoinPool} que fan la mateixa cerca de finestra nul·la que la
+     * versió seqüencial, contra el millor valor compartit en el moment de
+     * començar. Els resultats es combinen després en l'ordre de l'arrel, amb
+     * el mateix desempat aleatori.</p>
+     * 
+     * @param estat Estat arrel (es deixa igual en acabar)
+     * @param moviments Moviments arrel ordenats
+     * @param alpha Cota inferior de la finestra
+     * @param beta Cota superior de la finestra
+     * @param torn Color del jugador propi
+     * @param millorCami Llista on es deixa el camí del millor moviment
+     * @return Valor del millor moviment; si és <= alpha o >= beta és només una cota
+     */
+    private int cercarArrelParallel(GameStatusTunned estat, MoveList moviments, int alpha, int beta, int torn, MoveList millorCami) {
+        millorCami.clear();
+        TurnList torns = torns(0);
+        int pressupost = pressupostTorn;
+        List<MoveList> camins = new ArrayList<>();
+        for (int i = 0; i < moviments.size(); i++) {
+            int mov = moviments.get(i);
+            valorArrelActual[mov] = Integer.MIN_VALUE;
+            pressupost = generarTorns(estat, mov, torns, pressupost);
+            for (int t = 0; t < torns.size(); t++) {
+                MoveList cami = new MoveList(torns.length(t));
+                torns.copyTo(t, cami);
+                camins.add(cami);
+            }
+        }
+        if (camins.isEmpty()) {
+            return Integer.MIN_VALUE;
+        }
+        
+        int[] valors = new int[camins.size()];
+        Arrays.fill(valors, Integer.MIN_VALUE);
+        int marca = estat.getUndoDepth();
+        for (int i = 0; i < camins.get(0).size(); i++) {
+            estat.placeStone(camins.get(0).get(i));
+        }
+        valors[0] = cercarFill(estat, profunditatMaxima - 1, alpha, beta, torn, 1);
+        estat.unmakeTo(marca);
+        if (externalTimeout) {
+            valors[0] = Integer.MIN_VALUE; // Interromput: el valor no és real
+        }
+        
+        if (valors[0] < beta && !externalTimeout && camins.size() > 1) {
+            prepararMotorsArrel(estat);
+            PositionSnapshot arrel = PositionSnapshot.of(estat);
+            AtomicInteger millorCompartit = new AtomicInteger(valors[0]);
+            List<ForkJoinTask<?>> tasques = new ArrayList<>(camins.size() - 1);
+            for (int k = 1; k < camins.size(); k++) {
+                int index = k;
+                tasques.add(ForkJoinTask.adapt(() -> {
+                    valors[index] = cercarTascaArrel(arrel, camins.get(index), alpha, beta, torn, millorCompartit);
+                }));
+            }
+            for (ForkJoinTask<?> tasca : tasques) {
+                poolArrel.execute(tasca);
+            }
+            for (ForkJoinTask<?> tasca : tasques) {
+                tasca.join();
+            }
+            for (PlayerMiniMax m : motorsArrel) {
+                nodesExplorats += m.nodesExplorats;
+                m.nodesExplorats = 0;
+            }
+        }
+        
+        int millorValor = Integer.MIN_VALUE;
+        for (int k = 0; k < camins.size(); k++) {
+            MoveList cami = camins.get(k);
+            int valor = valors[k];
+            valorArrelActual[cami.get(0)] = Math.max(valorArrelActual[cami.get(0)], valor);
+            if (k > 0 && valor == millorValor && Math.random() < 0.3) {
+                millorCami.copyFrom(cami);
             } else if (valor > millorValor) {
                 millorValor = valor;
-                millorCami = new ArrayList<>(cami);
+                millorCami.copyFrom(cami);
+            }
+        }
+        return millorValor;
+    }
+    
+    /**
+     * Tasca de la cerca paral·lela de l'arrel: cerca un torn amb un motor
+     * lliure sobre una còpia de l'arrel.
+     * 
+     * @param arrel Fotografia de l'estat arrel
+     * @param cami Torn a cercar
+     * @param alpha Cota inferior de la finestra de l'arrel
+     * @param beta Cota superior de la finestra de l'arrel
+     * @param torn Color del jugador propi
+     * @param millorCompartit Millor valor trobat fins ara per totes les tasques
+     * @return Valor del torn, o una cota superior si no millora el millor
+     *         valor que hi havia en començar; Integer.MIN_VALUE si no s'ha cercat
+     */
+    private int cercarTascaArrel(PositionSnapshot arrel, MoveList cami, int alpha, int beta, int torn, AtomicInteger millorCompartit) {
+        if (externalTimeout || millorCompartit.get() >= beta) {
+            return Integer.MIN_VALUE;
+        }
+        PlayerMiniMax motor = motorsLliures.poll();
+        if (motor == null) {
+            // Un fil que espera una tasca (o un fil de compensació del pool)
+            // pot començar-ne una altra amb el seu motor encara ocupat
+            motor = afegirMotorArrel(arrel);
+        }
+        try {
+            GameStatusTunned estat = arrel.toGameStatus();
+            for (int i = 0; i < cami.size(); i++) {
+                estat.placeStone(cami.get(i));
+            }
+            int minim = Math.max(millorCompartit.get(), alpha);
+            int valor = motor.cercarFill(estat, profunditatMaxima - 1, minim - 1, minim, torn, 1);
+            if (valor >= minim && valor < beta) {
+                valor = motor.cercarFill(estat, profunditatMaxima - 1, minim - 1, beta, torn, 1);
+            }
+            if (externalTimeout) {
+                return Integer.MIN_VALUE; // Interromput: el valor no és real
+            }
+            millorCompartit.accumulateAndGet(valor, Math::max);
+            return valor;
+        } finally {
+            motorsLliures.add(motor);
+        }
+    }
+    
+    /**
+     * Crea (la primera vegada) i prepara els motors de les tasques de l'arrel:
+     * mateixa taula, configuració, profunditat i jugador que aquest motor.
+     * 
+     * @param estat Estat arrel
+     */
+    private void prepararMotorsArrel(GameStatusTunned estat) {
+        if (poolArrel == null) {
+            poolArrel = new ForkJoinPool(filsArrel);
+            motorsArrel = new PlayerMiniMax[filsArrel];
+            motorsLliures = new ConcurrentLinkedQueue<>();
+            for (int k = 0; k < filsArrel; k++) {
+                motorsArrel[k] = new PlayerMiniMax(profunditatMaxima, taulaTransposicio, false);
+                motorsLliures.add(motorsArrel[k]);
             }
         }
+        for (PlayerMiniMax m : motorsArrel) {
+            configurarMotor(m, estat);
+        }
+    }
+    
+    /**
+     * Crea un motor de tasques de l'arrel quan no n'hi ha cap de lliure. El
+     * motor queda registrat a {@link #motorsArrel}, de manera que rep els
+     * timeouts, se'n sumen els nodes i es torna a fer servir a les cerques
+     * següents.
+     * 
+     * @param arrel Fotografia de l'estat arrel
+     * @return Motor nou preparat per a la cerca actual
+     */
+    private synchronized PlayerMiniMax afegirMotorArrel(PositionSnapshot arrel) {
+        PlayerMiniMax motor = new PlayerMiniMax(profunditatMaxima, taulaTransposicio, false);
+        configurarMotor(motor, arrel.toGameStatus());
+        PlayerMiniMax[] motors = Arrays.copyOf(motorsArrel, motorsArrel.length + 1);
+        motors[motors.length - 1] = motor;
+        motorsArrel = motors;
+        // Després de publicar-lo: un timeout posterior ja el troba a la llista
+        motor.setExternalTimeout(externalTimeout);
+        return motor;
+    }
+    
+    /**
+     * Crea (la primera vegada) el pool de la divisió dels nodes interns i
+     * prepara els motors que ja té per a una cerca nova.
+     * 
+     * @param estat Estat arrel
+     */
+    private void prepararMotorsDivisio(GameStatusTunned estat) {
+        if (poolDivisio == null) {
+            poolDivisio = new ForkJoinPool(filsDivisio);
+            motorsDivisio = new ConcurrentLinkedQueue<>();
+        }
+        // Entre cerques no hi ha cap tasca en marxa: tots els motors són a la cua
+        for (PlayerMiniMax m : motorsDivisio) {
+            configurarMotor(m, estat);
+        }
+    }
+    
+    /**
+     * Copia a un motor de tasca la configuració d'aquest (taula, poda,
+     * reduccions, quiescència, pressupost, divisió, profunditat i jugador) i
+     * el prepara per cercar.
+     * 
+     * @param m Motor de tasca
+     * @param estat Estat des d'on cercarà
+     */
+    private void configurarMotor(PlayerMiniMax m, GameStatusTunned estat) {
+        if (m.taulaTransposicio != taulaTransposicio) {
+            m.taulaTransposicio = taulaTransposicio;
+        }
+        m.margesFutilitat = margesFutilitat;
+        m.profunditatMinimaLMR = profunditatMinimaLMR;
+        m.movimentsCompletsLMR = movimentsCompletsLMR;
+        for (int d = 0; d < reduccioLMR.length; d++) {
+            System.arraycopy(reduccioLMR[d], 0, m.reduccioLMR[d], 0, reduccioLMR[d].length);
+        }
+        if (m.quiescenciaMaxima != quiescenciaMaxima) {
+            m.setQuiescenceDepth(quiescenciaMaxima);
+        }
+        m.pressupostTorn = pressupostTorn;
+        m.filsDivisio = filsDivisio;
+        m.profunditatMinimaDivisio = profunditatMinimaDivisio;
+        m.poolDivisio = poolDivisio;
+        m.motorsDivisio = motorsDivisio;
+        m.jugadorPropi = jugadorPropi;
+        m.nodesExplorats = 0;
+        m.preparar(topologia);
+        m.setProfunditat(profunditatMaxima);
+        m.iniciarCerca(estat);
+        // La història d'aquest motor ordena millor que una de buida
+        for (int c = 0; c < historia.length; c++) {
+            System.arraycopy(historia[c], 0, m.historia[c], 0, historia[c].length);
+        }
+    }
+    
+    /**
+     * Cerca en paral·lel els germans petits d'un node (Young Brothers Wait):
+     * genera tots els torns que queden des de la primera col·locació
+     * {@code desde}, en fa una tasca per torn i espera que acabin.
+     * 
+     * <p>Els moviments tranquils que la poda de futilitat saltaria no es
+     * cerquen i compten amb el límit de futilitat, com a la cerca
+     * seqüencial. La reducció de moviments tardans es decideix aquí amb els
+     * assassins d'aquest motor i s'aplica a la tasca.</p>
+     * 
+     * @param estat Estat del node (es deixa igual en acabar)
+     * @param moviments Primeres col·locacions ordenades del node
+     * @param desde Índex de la primera col·locació que no s'ha cercat
+     * @param profunditat Profunditat restant del node
+     * @param alpha Alpha actual del node
+     * @param beta Beta del node
+     * @param nivell Nivell del node
+     * @param torns Llista de torns del node (amb les posicions ja vistes)
+     * @param pressupost Pressupost de torns que queda al node
+     * @param limitFutilitat Valor dels moviments tranquils saltats, o
+     *        Integer.MIN_VALUE si no hi ha poda de futilitat
+     * @return Punt de divisió amb el millor valor i el moviment que l'ha donat
+     */
+    private SplitPoint cercarGermansEnParallel(GameStatusTunned estat, MoveList moviments, int desde, int profunditat,
+            int alpha, int beta, int nivell, TurnList torns, int pressupost, int limitFutilitat) {
+        BitboardPosition posicio = estat.getPosition();
+        int torn = posicio.getTurn();
+        int[] assassinsNivell = assassins[nivell];
+        List<MoveList> camins = new ArrayList<>();
+        int[] reduccions = new int[moviments.size()];
+        SplitPoint punt = new SplitPoint(puntDivisio, this, alpha, beta);
+        
+        for (int i = desde; i < moviments.size(); i++) {
+            int mov = moviments.get(i);
+            boolean tranquil = posicio.getNeighbourCount(mov, torn) == 0;
+            if (limitFutilitat != Integer.MIN_VALUE && tranquil) {
+                if (limitFutilitat > punt.millorValor) {
+                    punt.millorValor = limitFutilitat;
+                    punt.millorMoviment = -1;
+                }
+                continue;
+            }
+            int reduccio = 0;
+            if (tranquil && profunditat >= profunditatMinimaLMR && i >= movimentsCompletsLMR
+                    && mov != assassinsNivell[0] && mov != assassinsNivell[1]) {
+                reduccio = Math.min((reduccioLMR[Math.min(profunditat, 63)][Math.min(i, 63)] + 1) & ~1, (profunditat - 2) & ~1);
+            }
+            pressupost = generarTorns(estat, mov, torns, pressupost);
+            for (int t = 0; t < torns.size(); t++) {
+                MoveList cami = new MoveList(torns.length(t));
+                torns.copyTo(t, cami);
+                if (camins.size() == reduccions.length) {
+                    reduccions = Arrays.copyOf(reduccions, reduccions.length * 2);
+                }
+                reduccions[camins.size()] = reduccio;
+                camins.add(cami);
+            }
+        }
+        if (camins.isEmpty()) {
+            return punt;
+        }
         
-        if (millorCami.isEmpty() && !moviments.isEmpty()) {
-            millorCami = construirCamiComplet(estat, moviments.get(0));
+        int n = camins.size();
+        int[] valors = new int[n];
+        punt.nodesTasca = new long[n];
+        punt.puntsTasca = new long[n];
+        punt.tasquesTasca = new long[n];
+        punt.maximTasca = new long[n];
+        PositionSnapshot node = PositionSnapshot.of(estat);
+        int[] reduccionsFinals = reduccions;
+        List<ForkJoinTask<?>> tasques = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            int index = k;
+            tasques.add(ForkJoinTask.adapt(() -> {
+                valors[index] = cercarTascaDivisio(punt, node, camins.get(index), reduccionsFinals[index],
+                        profunditat, torn, nivell, index);
+            }));
+        }
+        if (ForkJoinTask.getPool() == poolDivisio) {
+            // Des d'un fil del pool: aquest fil també cerca i roba feina mentre espera
+            ForkJoinTask.invokeAll(tasques);
+        } else {
+            poolDivisio.invoke(ForkJoinTask.adapt(() -> {
+                ForkJoinTask.invokeAll(tasques);
+            }));
         }
         
-        return new PlayerMove(millorCami, nodesExplorats, profunditatMaxima, SearchType.MINIMAX);
+        puntsDivisio++;
+        tasquesDivisio += n;
+        for (int k = 0; k < n; k++) {
+            nodesExplorats += punt.nodesTasca[k];
+            puntsDivisio += punt.puntsTasca[k];
+            tasquesDivisio += punt.tasquesTasca[k];
+            nodesTascaMaxima = Math.max(nodesTascaMaxima, Math.max(punt.nodesTasca[k], punt.maximTasca[k]));
+            if (valors[k] > punt.millorValor) {
+                punt.millorValor = valors[k];
+                punt.millorMoviment = camins.get(k).get(0);
+                punt.fillMillor = k;
+            }
+        }
+        return punt;
+    }
+    
+    /**
+     * Tasca d'un punt de divisió: cerca un germà petit amb un motor lliure
+     * sobre una còpia del node, amb la finestra nul·la a l'alpha compartit i
+     * tornant a cercar amb la finestra [alpha, beta] si la supera.
+     * 
+     * @param punt Punt de divisió
+     * @param node Fotografia de l'estat del node
+     * @param cami Torn a cercar
+     * @param reduccio Reducció de moviment tardà de la primera cerca
+     * @param profunditat Profunditat restant del node
+     * @param torn Color del jugador que tira al node
+     * @param nivell Nivell del node
+     * @param index Índex de la tasca al punt, per desar-ne els comptadors
+     * @return Valor del torn, o Integer.MIN_VALUE si no s'ha cercat o el punt
+     *         s'ha tallat o aturat mentre es cercava
+     */
+    private int cercarTascaDivisio(SplitPoint punt, PositionSnapshot node, MoveList cami, int reduccio,
+            int profunditat, int torn, int nivell, int index) {
+        if (punt.aturat() || punt.alpha.get() >= punt.beta) {
+            return Integer.MIN_VALUE;
+        }
+        GameStatusTunned estat = node.toGameStatus();
+        PlayerMiniMax motor = motorsDivisio.poll();
+        if (motor == null) {
+            motor = new PlayerMiniMax(profunditatMaxima, taulaTransposicio, false);
+            configurarMotor(motor, estat);
+        }
+        long nodesAbans = motor.nodesExplorats;
+        long puntsAbans = motor.puntsDivisio;
+        long tasquesAbans = motor.tasquesDivisio;
+        motor.nodesTascaMaxima = 0;
+        motor.puntDivisio = punt;
+        try {
+            for (int i = 0; i < cami.size(); i++) {
+                estat.placeStone(cami.get(i));
+            }
+            int a = punt.alpha.get();
+            int valor = motor.cercarFill(estat, profunditat - 1 - reduccio, a, a + 1, torn, nivell + 1);
+            if (reduccio > 0 && valor > a) {
+                motor.reduccionsFallides++;
+                valor = motor.cercarFill(estat, profunditat - 1, a, a + 1, torn, nivell + 1);
+            }
+            if (valor > a && valor < punt.beta) {
+                valor = motor.cercarFill(estat, profunditat - 1, a, punt.beta, torn, nivell + 1);
+            }
+            if (punt.aturat()) {
+                return Integer.MIN_VALUE; // Cerca interrompuda: el valor no és fiable
+            }
+            if (punt.alpha.accumulateAndGet(valor, Math::max) >= punt.beta) {
+                punt.tallat = true;
+            }
+            return valor;
+        } finally {
+            punt.nodesTasca[index] = motor.nodesExplorats - nodesAbans;
+            punt.puntsTasca[index] = motor.puntsDivisio - puntsAbans;
+            punt.tasquesTasca[index] = motor.tasquesDivisio - tasquesAbans;
+            punt.maximTasca[index] = motor.nodesTascaMaxima;
+            motor.puntDivisio = null;
+            motorsDivisio.add(motor);
+        }
+    }
+    
+    /**
+     * Prepara la taula de transposició per a una cerca des de l'estat arrel.
+     * 
+     * <p>La taula es crea a la primera cerca i es conserva entre crides. Si
+     * l'arrel és la mateixa que la de la crida anterior (una nova iteració
+     * d'aprofundiment iteratiu), la cerca continua amb la mateixa edat i l'ordre
+     * de l'arrel de la iteració anterior. Si és una posició nova, s'incrementa
+     * l'edat: les entrades antigues continuen servint però passen a ser
+     * substituïbles. Només es buida si canvia el jugador o el tauler, perquè
+     * els valors són des del punt de vista del jugador propi.</p>
+     * 
+     * @param estat Estat arrel de la cerca
+     */
+    private void iniciarCerca(GameStatusTunned estat) {
+        if (taulaTransposicio == null) {
+            taulaTransposicio = new TranspositionTable(midaTaulaMB);
+            jugadorTaula = jugadorPropi;
+        } else if (jugadorTaula != jugadorPropi) {
+            if (gestionaTaula) {
+                taulaTransposicio.clear();
+            }
+            jugadorTaula = jugadorPropi;
+            hiHaOrdreArrel = false;
+            Arrays.fill(hiHaValorParitat, false);
+        }
+        long clau = estat.getZobristKey();
+        if (clau != clauArrel) {
+            if (gestionaTaula) {
+                taulaTransposicio.newSearch();
+            }
+            envellirHistoria();
+            clauArrel = clau;
+            hiHaOrdreArrel = false;
+            Arrays.fill(hiHaValorParitat, false);
+        }
+    }
+    
+    /**
+     * Desa els valors de l'arrel d'una iteració completa per ordenar la
+     * següent: primer el millor i, a igual valor, l'ordre actual.
+     * 
+     * @param moviments Moviments arrel explorats
+     */
+    private void desarOrdreArrel(MoveList moviments) {
+        Arrays.fill(ordreArrel, Integer.MAX_VALUE);
+        for (int i = 0; i < moviments.size(); i++) {
+            int valor = valorArrelActual[moviments.get(i)];
+            // Negat amb saturació per no desbordar amb Integer.MIN_VALUE
+            ordreArrel[moviments.get(i)] = valor == Integer.MIN_VALUE ? Integer.MAX_VALUE : -valor;
+        }
+        hiHaOrdreArrel = true;
     }
     
     /**
-     * Algorisme Minimax recursiu amb poda alpha-beta.
+     * Prepara les llistes reutilitzables i la taula de distàncies al centre
+     * per a una mida de tauler. Només es refan si canvia la topologia.
      * 
-     * <p>Aquesta és la funció central de l'algorisme que avalua recursivament
-     * l'arbre de joc alternant entre maximitzar (jugador propi) i minimitzar
-     * (jugador enemic).</p>
+     * @param topo Topologia del tauler de la partida
+     */
+    private void preparar(HexTopology topo) {
+        if (topologia == topo) {
+            return;
+        }
+        topologia = topo;
+        int numCells = topo.getNumCells();
+        if (taulaTransposicio != null && gestionaTaula) {
+            taulaTransposicio.clear();
+        }
+        clauArrel = 0;
+        hiHaOrdreArrel = false;
+        Arrays.fill(hiHaValorParitat, false);
+        valorArrelActual = new int[numCells];
+        ordreArrel = new int[numCells];
+        movimentsPerNivell = new MoveList[profunditatMaxima + 1];
+        segursPerNivell = new MoveList[profunditatMaxima + 1];
+        capturesQuiescencia = new MoveList[quiescenciaMaxima + 1];
+        tornsPerNivell = new TurnList[profunditatMaxima + 1];
+        camiTorn = new MoveList(numCells);
+        capturesTorn = new MoveList[numCells + 1];
+        quietsTorn = new MoveList[numCells + 1];
+        clauOrdre = new int[numCells];
+        calcularSorollOrdre(numCells);
+        historia = new int[2][numCells];
+        assassins = new int[profunditatMaxima + 1][];
+        for (int i = 0; i < assassins.length; i++) {
+            assassins[i] = new int[] {-1, -1};
+        }
+        capturesCadena = new MoveList(numCells);
+        quietsCadena = new MoveList(numCells);
+        capturesSegures = new MoveList(numCells);
+        quietsSegurs = new MoveList(numCells);
+        capturesAvaluacio = new MoveList(numCells);
+        quietsAvaluacio = new MoveList(numCells);
+        
+        int centre = topo.getSize() / 2;
+        distanciaCentre = new int[numCells];
+        for (int cell = 0; cell < numCells; cell++) {
+            distanciaCentre[cell] = Math.abs(topo.getX(cell) - centre) + Math.abs(topo.getY(cell) - centre);
+        }
+    }
+    
+    /**
+     * Obté la llista reutilitzable d'un nivell, creant-la la primera vegada.
+     * 
+     * @param pool Llistes per nivell
+     * @param nivell Nivell de l'arbre (0 = arrel)
+     * @return Llista del nivell
+     */
+    private MoveList llista(MoveList[] pool, int nivell) {
+        if (pool[nivell] == null) {
+            pool[nivell] = new MoveList(topologia.getNumCells());
+        }
+        return pool[nivell];
+    }
+    
+    /**
+     * Obté la llista de torns d'un nivell, buida i amb el conjunt de
+     * posicions vistes net.
+     * 
+     * @param nivell Nivell de l'arbre (0 = arrel)
+     * @return Llista de torns del nivell
+     */
+    private TurnList torns(int nivell) {
+        if (tornsPerNivell[nivell] == null) {
+            tornsPerNivell[nivell] = new TurnList(topologia.getNumCells());
+        }
+        tornsPerNivell[nivell].reset();
+        return tornsPerNivell[nivell];
+    }
+    
+    /**
+     * Algorisme Minimax recursiu en forma negamax amb Principal Variation
+     * Search (NegaScout).
+     * 
+     * <p>El valor retornat és sempre des del punt de vista del jugador que ha
+     * de tirar a l'estat: la valoració pròpia si és el jugador propi i la
+     * valoració canviada de signe si és l'enemic. Així maximitzar i minimitzar
+     * són el mateix codi.</p>
      * 
      * <h3>Optimitzacions:</h3>
      * <ul>
-     *   <li><b>Poda Alpha-Beta:</b> Talla branques que no poden millorar el resultat</li>
-     *   <li><b>Taula de Transposició:</b> Evita recalcular estats repetits</li>
+     *   <li><b>PVS:</b> El primer fill (el de la taula o el millor ordenat)
+     *       es cerca amb la finestra completa. La resta es cerquen amb finestra
+     *       nul·la per demostrar que no el milloren, i només es tornen a
+     *       cercar amb la finestra completa si la superen (fail-high)</li>
+     *   <li><b>LMR:</b> Els moviments tranquils del final de la llista es
+     *       cerquen amb profunditat reduïda i només es tornen a cercar
+     *       sencers si superen alpha</li>
+     *   <li><b>Futilitat:</b> Prop de les fulles, si la valoració estàtica més
+     *       un marge no arriba a alpha, els moviments tranquils se salten</li>
+     *   <li><b>Taula de Transposició:</b> Evita recalcular estats repetits. Cada
+     *       entrada porta el tipus de cota: un valor obtingut amb la finestra
+     *       tallada només es reutilitza com a cota, no com a valor exacte. El
+     *       millor moviment desat s'explora primer.</li>
      *   <li><b>Detecció de Timeout:</b> Retorna ràpidament si externalTimeout == true</li>
      *   <li><b>Ordenació de Moviments:</b> Millora l'eficiència de la poda</li>
      * </ul>
      * 
      * <h3>Casos Base:</h3>
      * <ol>
-     *   <li>Timeout extern: retorna 0</li>
-     *   <li>Estat en cache: retorna valor emmagatzemat</li>
+     *   <li>Timeout extern o punt de divisió tallat: retorna 0. El valor no
+     *       és real i no es desa mai a la taula: cada node comprova
+     *       {@link #aturat()} abans de desar, i la condició ja no torna a ser
+     *       falsa fins a la cerca següent</li>
+     *   <li>Estat en cache amb profunditat suficient: retorna el valor si és
+     *       exacte o si la cota cau fora de la finestra [alpha, beta]</li>
      *   <li>Joc acabat: retorna VICTORIA o DERROTA</li>
-     *   <li>Profunditat 0: retorna heurística</li>
+     *   <li>Profunditat 0: cerca de quiescència sobre les captures</li>
      *   <li>No hi ha moviments: retorna heurística</li>
      * </ol>
      * 
-     * @param estat Estat del joc a avaluar
+     * <p>Els fills s'avaluen aplicant el torn complet sobre el mateix estat
+     * i desfent-lo després ({@link GameStatusTunned#unmakeTo(int)}), de manera
+     * que en retornar l'estat és idèntic al d'entrada. Un torn complet no
+     * sempre passa el torn a l'enemic: si l'enemic no té moviments torna a
+     * tirar el mateix jugador, i {@link #cercarFill} no canvia el signe.</p>
+     * 
+     * <p>Els fills són torns complets, no primeres col·locacions: una
+     * primera col·locació de captura pot donar diverses cadenes
+     * ({@link #generarTorns}), i les que acaben a una posició ja vista al node
+     * no es cerquen. L'ordenació, els assassins i la taula continuen
+     * treballant amb la primera casella del torn.</p>
+     * 
+     * @param estat Estat del joc a avaluar (es modifica temporalment)
      * @param profunditat Profunditat restant de cerca
-     * @param alpha Millor valor per al maximitzador (poda alpha)
-     * @param beta Millor valor per al minimitzador (poda beta)
-     * @param esMaximitzant true si és el torn del jugador propi, false si és de l'enemic
-     * @return Valor heurístic de l'estat des del punt de vista del jugador propi
+     * @param alpha Cota inferior de la finestra (punt de vista del jugador que tira)
+     * @param beta Cota superior de la finestra (punt de vista del jugador que tira)
+     * @param nivell Distància a l'arrel, per triar les llistes de moviments del nivell
+     * @return Valor de l'estat des del punt de vista del jugador que ha de tirar
      */
-    private int minimax(GameStatusTunned estat, int profunditat, int alpha, int beta, boolean esMaximitzant) {
+    private int negamax(GameStatusTunned estat, int profunditat, int alpha, int beta, int nivell) {
         nodesExplorats++;
         
-        // Comprovar si PlayerMiniMaxIDS ha interromput l'execució
-        if (externalTimeout) {
+        // Comprovar si PlayerMiniMaxIDS ha interromput l'execució o si s'ha
+        // tallat el punt de divisió de la tasca
+        if (aturat()) {
             return 0; // Retornar ràpidament si s'ha exhaurit el temps
         }
         
-        int hashCode = estat.hashCode();
-        TranspositionEntry entry = taulaTransposicio.get(hashCode);
-        if (entry != null && entry.profunditat >= profunditat) {
-            return entry.valor;
+        long hashCode = estat.getZobristKey();
+        int alphaOriginal = alpha;
+        int betaOriginal = beta;
+        int movimentTaula = -1;
+        long entrada = taulaTransposicio.probe(hashCode);
+        if (entrada != 0) {
+            movimentTaula = TranspositionTable.move(entrada);
+            if (TranspositionTable.depth(entrada) >= profunditat) {
+                int valorTaula = TranspositionTable.score(entrada);
+                switch (TranspositionTable.bound(entrada)) {
+                    case TranspositionTable.EXACTA:
+                        return valorTaula;
+                    case TranspositionTable.INFERIOR:
+                        alpha = Math.max(alpha, valorTaula);
+                        break;
+                    default:
+                        beta = Math.min(beta, valorTaula);
+                        break;
+                }
+                if (alpha >= beta) {
+                    return valorTaula;
+                }
+            }
         }
         
+        int signe = estat.getCurrentPlayer() == jugadorPropi ? 1 : -1;
+        
         if (estat.isGameOver()) {
-            int valor = avaluarEstatTerminal(estat);
-            taulaTransposicio.put(hashCode, new TranspositionEntry(valor, profunditat));
+            int valor = signe * avaluarEstatTerminal(estat);
+            taulaTransposicio.store(hashCode, valor, profunditat, TranspositionTable.EXACTA, -1);
             return valor;
         }
         
         if (profunditat == 0) {
-            int valor = heuristica(estat);
-            taulaTransposicio.put(hashCode, new TranspositionEntry(valor, profunditat));
+            int valor = quiescencia(estat, alpha, beta, signe, 0);
+            if (aturat()) {
+                return valor; // Quiescència interrompuda: el valor no és real
+            }
+            if (quiescenciaMaxima == 0) {
+                // Sense quiescència el valor és l'heurística: sempre exacte
+                taulaTransposicio.store(hashCode, valor, profunditat, TranspositionTable.EXACTA, -1);
+            } else {
+                desarResultat(hashCode, valor, profunditat, alphaOriginal, betaOriginal, -1);
+            }
             return valor;
         }
         
-        List<Point> moviments = estat.getMoves();
+        MoveList moviments = llista(movimentsPerNivell, nivell);
+        estat.generateMoves(moviments);
         
         if (moviments.isEmpty()) {
-            int valor = heuristica(estat);
-            taulaTransposicio.put(hashCode, new TranspositionEntry(valor, profunditat));
+            int valor = signe * heuristica(estat);
+            taulaTransposicio.store(hashCode, valor, profunditat, TranspositionTable.EXACTA, -1);
             return valor;
         }
         
-        moviments = filtrarMovimentsSegurs(estat, moviments);
-        
-        int centre = estat.getSize() / 2;
-        moviments.sort((p1, p2) -> {
-            int dist1 = Math.abs(p1.x - centre) + Math.abs(p1.y - centre);
-            int dist2 = Math.abs(p2.x - centre) + Math.abs(p2.y - centre);
-            return Integer.compare(dist1, dist2);
-        });
+        moviments = filtrarMovimentsSegurs(estat, moviments, llista(segursPerNivell, nivell));
+        ordenarMoviments(estat.getPosition(), moviments, nivell, movimentTaula);
         
         if (moviments.isEmpty()) {
-            int valor = heuristica(estat);
-            return valor;
+            return signe * heuristica(estat);
         }
         
-        if (esMaximitzant) {
-            int maxValor = Integer.MIN_VALUE;
-            
-            for (Point mov : moviments) {
-                GameStatusTunned nouEstat = new GameStatusTunned(estat);
-                aplicarMovimentComplet(nouEstat, mov);
-                
-                int valor = minimax(nouEstat, profunditat - 1, alpha, beta, false);
-                maxValor = Math.max(maxValor, valor);
-                alpha = Math.max(alpha, valor);
-                
-                if (beta <= alpha) break;
+        BitboardPosition posicio = estat.getPosition();
+        int torn = posicio.getTurn();
+        int millorValor = -INFINIT;
+        int millorMoviment = -1;
+        int[] assassinsNivell = assassins[nivell];
+        TurnList torns = torns(nivell);
+        int pressupost = pressupostTorn;
+        int fill = 0;
+        
+        // Poda de futilitat: prop de les fulles, si la valoració estàtica més
+        // el marge no arriba a alpha, els moviments tranquils no s'exploren.
+        boolean futilitat = false;
+        int limitFutilitat = 0;
+        if (margesFutilitat != null && profunditat <= margesFutilitat.length
+                && Math.abs(alpha) < VICTORIA / 4
+                && posicio.getStoneCount(0) > 0 && posicio.getStoneCount(1) > 0) {
+            limitFutilitat = signe * heuristica(estat) + margesFutilitat[profunditat - 1];
+            futilitat = limitFutilitat <= alpha;
+        }
+        
+        for (int i = 0; i < moviments.size() && alpha < beta; i++) {
+            if (fill > 0 && filsDivisio > 1 && profunditat >= profunditatMinimaDivisio
+                    && moviments.size() - i > 1 && !aturat()) {
+                // Young Brothers Wait: el germà gran ja té valor; la resta es
+                // cerquen en paral·lel. El moviment de la taula sempre és el
+                // primer, així que cap dels que queden ho és.
+                SplitPoint punt = cercarGermansEnParallel(estat, moviments, i, profunditat, alpha, beta, nivell,
+                        torns, pressupost, futilitat ? limitFutilitat : Integer.MIN_VALUE);
+                if (punt.millorValor > millorValor) {
+                    millorValor = punt.millorValor;
+                    if (punt.millorMoviment >= 0) {
+                        millorMoviment = punt.millorMoviment;
+                    }
+                }
+                alpha = Math.max(alpha, millorValor);
+                if (alpha >= beta && punt.millorMoviment >= 0) {
+                    registrarTall(posicio, punt.millorMoviment, torn, profunditat, nivell, fill + punt.fillMillor);
+                }
+                break;
             }
             
-            taulaTransposicio.put(hashCode, new TranspositionEntry(maxValor, profunditat));
-            return maxValor;
+            int mov = moviments.get(i);
+            boolean tranquil = mov != movimentTaula && posicio.getNeighbourCount(mov, torn) == 0;
             
-        } else {
-            int minValor = Integer.MAX_VALUE;
+            if (futilitat && tranquil && i > 0) {
+                millorValor = Math.max(millorValor, limitFutilitat);
+                continue;
+            }
             
-            for (Point mov : moviments) {
-                GameStatusTunned nouEstat = new GameStatusTunned(estat);
-                aplicarMovimentComplet(nouEstat, mov);
+            // Una primera col·locació de captura pot donar diversos torns
+            pressupost = generarTorns(estat, mov, torns, pressupost);
+            for (int t = 0; t < torns.size(); t++) {
+                int marca = estat.getUndoDepth();
+                torns.apply(t, estat);
+                int valor;
+                if (fill == 0) {
+                    valor = cercarFill(estat, profunditat - 1, alpha, beta, torn, nivell + 1);
+                } else {
+                    // Reducció de moviments tardans: els tranquils del final de la
+                    // llista es cerquen primer a menys profunditat; si superen
+                    // alpha, es tornen a cercar a la profunditat completa.
+                    int reduccio = 0;
+                    if (tranquil && profunditat >= profunditatMinimaLMR && i >= movimentsCompletsLMR
+                            && mov != assassinsNivell[0] && mov != assassinsNivell[1]) {
+                        reduccio = Math.min((reduccioLMR[Math.min(profunditat, 63)][Math.min(i, 63)] + 1) & ~1, (profunditat - 2) & ~1);
+                    }
+                    valor = cercarFill(estat, profunditat - 1 - reduccio, alpha, alpha + 1, torn, nivell + 1);
+                    if (reduccio > 0 && valor > alpha) {
+                        reduccionsFallides++;
+                        valor = cercarFill(estat, profunditat - 1, alpha, alpha + 1, torn, nivell + 1);
+                    }
+                    if (valor > alpha && valor < beta) {
+                        valor = cercarFill(estat, profunditat - 1, alpha, beta, torn, nivell + 1);
+                    }
+                }
+                estat.unmakeTo(marca);
                 
-                int valor = minimax(nouEstat, profunditat - 1, alpha, beta, true);
-                minValor = Math.min(minValor, valor);
-                beta = Math.min(beta, valor);
+                if (valor > millorValor) {
+                    millorValor = valor;
+                    millorMoviment = mov;
+                }
+                alpha = Math.max(alpha, valor);
                 
-                if (beta <= alpha) break;
+                if (alpha >= beta) {
+                    registrarTall(posicio, mov, torn, profunditat, nivell, fill);
+                    break;
+                }
+                fill++;
+            }
+        }
+        
+        desarResultat(hashCode, millorValor, profunditat, alphaOriginal, betaOriginal, millorMoviment);
+        return millorValor;
+    }
+    
+    /**
+     * Cerca de quiescència: resol les captures pendents del jugador que tira
+     * abans de valorar la fulla.
+     * 
+     * <p>Una captura torna el torn al mateix jugador, de manera que una fulla
+     * amb captures disponibles no és estable: la valoració estàtica no sap si
+     * les farà. Aquí el jugador pot plantar-se (stand-pat: acabar el torn amb
+     * una col·locació tranquil·la, valorat amb l'heurística) o fer qualsevol
+     * captura i continuar. Totes les col·locacions són del mateix jugador, així
+     * que no hi ha canvi de signe.</p>
+     * 
+     * <p>Les captures s'exploren de més a menys pedres capturades i la
+     * cadena es limita a {@link #quiescenciaMaxima} col·locacions.</p>
+     * 
+     * @param estat Estat de la fulla (es deixa igual en acabar)
+     * @param alpha Cota inferior (punt de vista del jugador que tira)
+     * @param beta Cota superior (punt de vista del jugador que tira)
+     * @param signe 1 si tira el jugador propi, -1 si tira l'enemic
+     * @param ply Col·locacions de captura fetes des de la fulla
+     * @return Valor de la fulla des del punt de vista del jugador que tira
+     */
+    private int quiescencia(GameStatusTunned estat, int alpha, int beta, int signe, int ply) {
+        if (ply > 0) {
+            nodesExplorats++;
+        }
+        nodesQuiescencia++;
+        if (aturat()) {
+            return 0;
+        }
+        if (estat.isGameOver()) {
+            return signe * avaluarEstatTerminal(estat);
+        }
+        
+        // Les cadenes de captures en ordres diferents arriben a la mateixa
+        // posició: la taula les resol una sola vegada.
+        long clau = estat.getZobristKey();
+        int alphaOriginal = alpha;
+        if (ply > 0) {
+            long entrada = taulaTransposicio.probe(clau);
+            if (entrada != 0) {
+                int valorTaula = TranspositionTable.score(entrada);
+                int cota = TranspositionTable.bound(entrada);
+                if (cota == TranspositionTable.EXACTA
+                        || (cota == TranspositionTable.INFERIOR && valorTaula >= beta)
+                        || (cota == TranspositionTable.SUPERIOR && valorTaula <= alpha)) {
+                    return valorTaula;
+                }
             }
+        }
+        
+        // L'heurística ja genera les captures de l'estat per a la mobilitat
+        int valor = signe * heuristica(estat);
+        if (valor >= beta || ply >= quiescenciaMaxima || capturesAvaluacio.isEmpty()) {
+            return valor;
+        }
+        alpha = Math.max(alpha, valor);
+        
+        if (capturesQuiescencia[ply] == null) {
+            capturesQuiescencia[ply] = new MoveList(topologia.getNumCells());
+        }
+        MoveList captures = capturesQuiescencia[ply];
+        captures.copyFrom(capturesAvaluacio);
+        BitboardPosition posicio = estat.getPosition();
+        for (int i = 0; i < captures.size(); i++) {
+            int mov = captures.get(i);
+            clauOrdre[mov] = -posicio.captureSize(mov);
+        }
+        captures.sortByKey(clauOrdre);
+        
+        for (int i = 0; i < captures.size(); i++) {
+            int marca = estat.getUndoDepth();
+            estat.placeStone(captures.get(i));
+            int valorFill = quiescencia(estat, alpha, beta, signe, ply + 1);
+            estat.unmakeTo(marca);
             
-            taulaTransposicio.put(hashCode, new TranspositionEntry(minValor, profunditat));
-            return minValor;
+            if (valorFill > valor) {
+                valor = valorFill;
+            }
+            if (valor >= beta) {
+                break;
+            }
+            alpha = Math.max(alpha, valor);
+        }
+        if (ply > 0) {
+            desarResultat(clau, valor, 0, alphaOriginal, beta, -1);
+        }
+        return valor;
+    }
+    
+    /**
+     * Ordena els moviments per etapes, de més a menys prometedors:
+     * 
+     * <ol>
+     *   <li>El moviment de la taula de transposició</li>
+     *   <li>Les captures, de més a menys pedres capturades</li>
+     *   <li>Els dos moviments assassins del nivell</li>
+     *   <li>La resta, per la taula d'història</li>
+     * </ol>
+     * 
+     * <p>Dins de cada etapa, a igual valor, es manté la proximitat al centre
+     * com a desempat.</p>
+     * 
+     * @param posicio Posició del node
+     * @param moviments Moviments a ordenar
+     * @param nivell Nivell del node (per als assassins)
+     * @param movimentTaula Millor moviment de la taula, o -1
+     */
+    private void ordenarMoviments(BitboardPosition posicio, MoveList moviments, int nivell, int movimentTaula) {
+        int torn = posicio.getTurn();
+        int[] historiaTorn = historia[torn];
+        int[] assassinsNivell = assassins[nivell];
+        for (int i = 0; i < moviments.size(); i++) {
+            int mov = moviments.get(i);
+            int captura = posicio.getNeighbourCount(mov, torn) > 0 ? posicio.captureSize(mov) : 0;
+            int clau;
+            if (captura > 0) {
+                clau = -(3 << 27) - (captura << 6);
+            } else if (mov == assassinsNivell[0]) {
+                clau = -(2 << 27);
+            } else if (mov == assassinsNivell[1]) {
+                clau = -(2 << 27) + 1;
+            } else {
+                clau = -(historiaTorn[mov] << 6);
+            }
+            clauOrdre[mov] = clau + distanciaCentre[mov] + sorollOrdre[mov];
+        }
+        moviments.sortByKey(clauOrdre);
+        if (movimentTaula >= 0) {
+            moviments.moveToFront(movimentTaula);
+        }
+    }
+    
+    /**
+     * Registra un tall beta: actualitza les estadístiques i, si el moviment
+     * no és una captura, els assassins del nivell i la taula d'història.
+     * 
+     * @param posicio Posició del node (ja restaurada)
+     * @param mov Moviment que ha provocat el tall
+     * @param torn Color del jugador que l'ha fet
+     * @param profunditat Profunditat restant del node
+     * @param nivell Nivell del node
+     * @param index Posició del moviment a la llista ordenada
+     */
+    private void registrarTall(BitboardPosition posicio, int mov, int torn, int profunditat, int nivell, int index) {
+        talls++;
+        if (index == 0) {
+            tallsPrimerMoviment++;
+        }
+        if (posicio.getNeighbourCount(mov, torn) > 0) {
+            return;
+        }
+        int[] assassinsNivell = assassins[nivell];
+        if (assassinsNivell[0] != mov) {
+            assassinsNivell[1] = assassinsNivell[0];
+            assassinsNivell[0] = mov;
+        }
+        historia[torn][mov] += profunditat * profunditat;
+        if (historia[torn][mov] >= MAX_HISTORIA) {
+            envellirHistoria();
+        }
+    }
+    
+    /**
+     * Divideix per dos la taula d'història i buida els assassins, perquè el
+     * que s'ha après en posicions anteriors pesi menys que el que s'aprèn ara.
+     */
+    private void envellirHistoria() {
+        if (historia == null) {
+            return;
+        }
+        for (int[] fila : historia) {
+            for (int i = 0; i < fila.length; i++) {
+                fila[i] >>= 1;
+            }
+        }
+        for (int[] fila : assassins) {
+            fila[0] = -1;
+            fila[1] = -1;
+        }
+    }
+    
+    /**
+     * @return Nodes interiors amb tall beta a l'última crida a {@link #move(GameStatus)}
+     */
+    public long getCutoffs() {
+        return talls;
+    }
+    
+    /**
+     * Percentatge de talls beta produïts pel primer moviment explorat. Mesura
+     * la qualitat de l'ordenació: com més a prop de 100, millor.
+     * 
+     * @return Percentatge (0-100) a l'última crida a {@link #move(GameStatus)}
+     */
+    public double getFirstMoveCutoffRate() {
+        return talls == 0 ? 0 : 100.0 * tallsPrimerMoviment / talls;
+    }
+    
+    /**
+     * Cerca un fill després d'aplicar un torn complet i en retorna el valor
+     * des del punt de vista del jugador que ha tirat.
+     * 
+     * <p>Normalment el fill el juga l'enemic i el valor i la finestra es
+     * canvien de signe (negamax). Si l'enemic no té moviments, el mateix
+     * jugador torna a tirar i el fill es cerca amb la mateixa finestra.</p>
+     * 
+     * @param estat Estat després del torn
+     * @param profunditat Profunditat restant
+     * @param alpha Cota inferior (punt de vista del jugador que ha tirat)
+     * @param beta Cota superior (punt de vista del jugador que ha tirat)
+     * @param torn Color del jugador que ha tirat
+     * @param nivell Nivell del fill
+     * @return Valor del fill per al jugador que ha tirat
+     */
+    private int cercarFill(GameStatusTunned estat, int profunditat, int alpha, int beta, int torn, int nivell) {
+        if (estat.getPosition().getTurn() == torn) {
+            return negamax(estat, profunditat, alpha, beta, nivell);
+        }
+        return -negamax(estat, profunditat, -beta, -alpha, nivell);
+    }
+    
+    /**
+     * @return true si la cerca s'ha d'aturar: temps exhaurit o punt de divisió
+     *         de la tasca (o un dels seus pares) tallat
+     */
+    private boolean aturat() {
+        return externalTimeout || (puntDivisio != null && puntDivisio.aturat());
+    }
+    
+    /**
+     * Desa el resultat d'un node a la taula de transposició amb el tipus de
+     * cota que correspon a la finestra amb què s'ha cercat.
+     * 
+     * <p>Si el valor no supera alpha, cap fill ha millorat la finestra i el
+     * valor real pot ser més baix (cota superior). Si arriba a beta, la cerca
+     * s'ha tallat i el valor real pot ser més alt (cota inferior). Altrament
+     * el valor és exacte.</p>
+     * 
+     * @param clau Clau de Zobrist de l'estat
+     * @param valor Valor obtingut
+     * @param profunditat Profunditat restant de la cerca
+     * @param alpha Alpha amb què s'ha cridat el node
+     * @param beta Beta amb què s'ha cridat el node
+     * @param millorMoviment Casella del millor fill, o -1
+     */
+    private void desarResultat(long clau, int valor, int profunditat, int alpha, int beta, int millorMoviment) {
+        if (aturat()) {
+            return; // Els valors d'una cerca interrompuda no són fiables
+        }
+        int cota;
+        if (valor <= alpha) {
+            cota = TranspositionTable.SUPERIOR;
+        } else if (valor >= beta) {
+            cota = TranspositionTable.INFERIOR;
+        } else {
+            cota = TranspositionTable.EXACTA;
         }
+        taulaTransposicio.store(clau, valor, profunditat, cota, millorMoviment);
     }
     
     /**
@@ -355,19 +1886,23 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * 
      * @param estat Estat actual del joc
      * @param moviments Llista de moviments a filtrar
-     * @return Llista de moviments segurs (o tots si no n'hi ha cap de segur)
+     * @param movimentsSegurs Llista reutilitzable on escriure els moviments segurs
+     * @return Llista de moviments segurs (o la d'entrada si no n'hi ha cap de segur)
      */
-    private List<Point> filtrarMovimentsSegurs(GameStatusTunned estat, List<Point> moviments) {
-        PlayerType enemic = jugadorPropi.opposite();
-        List<Point> movimentsSegurs = new ArrayList<>();
-        
-        for (Point mov : moviments) {
-            if (estat.isCapturingMove(mov)) {
+    private MoveList filtrarMovimentsSegurs(GameStatusTunned estat, MoveList moviments, MoveList movimentsSegurs) {
+        BitboardPosition posicio = estat.getPosition();
+        int torn = posicio.getTurn();
+        int enemic = BitboardPosition.colorIndex(jugadorPropi.opposite());
+        movimentsSegurs.clear();
+        
+        for (int i = 0; i < moviments.size(); i++) {
+            int mov = moviments.get(i);
+            if (posicio.getNeighbourCount(mov, torn) > 0) {
                 movimentsSegurs.add(mov);
                 continue;
             }
             
-            int distMin = calcularDistanciaMinima(estat, mov, enemic);
+            int distMin = posicio.nearestStoneDistance(mov, enemic);
             
             if (distMin >= 3) {
                 movimentsSegurs.add(mov);
@@ -390,8 +1925,11 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * absolutes de les coordenades: |x1-x2| + |y1-y2|. És la mètrica adequada per a Oust
      * ja que els moviments són en les 4 direccions cardinals.</p>
      * 
-     * <p><b>Ús estratègic:</b> Aquesta funció s'utilitza per determinar si una posició
-     * és "segura" (distància >= 3) o "perillosa" (distància < 3) respecte l'enemic.</p>
+     * <p><b>Ús estratègic:</b> La classificació "segura" (distància >= 3) o "perillosa"
+     * (distància < 3) es fa directament amb {@link BitboardPosition#nearestStoneDistance(int, int)},
+     * que és una sola consulta. Aquesta funció només cal quan es necessita la distància
+     * exacta (triar el moviment més allunyat): si és menor que 3 surt de la mateixa
+     * consulta, i altrament es recorren només les pedres enemigues.</p>
      * 
      * <h3>Exemples:</h3>
      * <pre>
@@ -400,21 +1938,29 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * </pre>
      * 
      * @param estat Estat actual del joc
-     * @param pos Posició de la qual calcular la distància
-     * @param enemic Tipus de jugador enemic
+     * @param cell Casella de la qual calcular la distància
+     * @param enemic Índex de color del jugador enemic
      * @return Distància mínima a la pedra enemiga més propera, o Integer.MAX_VALUE
      *         si no hi ha cap pedra enemiga al tauler
      */
-    private int calcularDistanciaMinima(GameStatusTunned estat, Point pos, PlayerType enemic) {
+    private int calcularDistanciaMinima(GameStatusTunned estat, int cell, int enemic) {
+        BitboardPosition posicio = estat.getPosition();
+        int propera = posicio.nearestStoneDistance(cell, enemic);
+        if (propera < 3) {
+            return propera;
+        }
+        
+        HexTopology topo = posicio.getTopology();
+        long[] enemigues = posicio.getStones(enemic);
         int distMin = Integer.MAX_VALUE;
         
-        for (int i = 0; i < estat.getSquareSize(); i++) {
-            for (int j = 0; j < estat.getSquareSize(); j++) {
-                Point p = new Point(i, j);
-                if (estat.isInBounds(p) && estat.getColor(p) == enemic) {
-                    int dist = Math.abs(pos.x - p.x) + Math.abs(pos.y - p.y);
-                    distMin = Math.min(distMin, dist);
-                }
+        // Només es recorren les pedres enemigues, no tot el tauler
+        for (int w = 0; w < enemigues.length; w++) {
+            long bits = enemigues[w];
+            while (bits != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                distMin = Math.min(distMin, topo.manhattan(cell, v));
             }
         }
         
@@ -448,23 +1994,185 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * </pre>
      * 
      * @param estat Estat actual del joc
-     * @param pos Posició candidata a distància 2 de l'enemic
+     * @param cell Casella candidata a distància 2 de l'enemic
      * @return true si és una trampa vàlida (segura malgrat dist=2), false altrament
      */
-    private boolean esTrampaValida(GameStatusTunned estat, Point pos) {
-        int aliatsAdjacents = 0;
-        int midaGrupMaxim = 0;
+    private boolean esTrampaValida(GameStatusTunned estat, int cell) {
+        int midaGrupMaxim = estat.midaMaximaVeina(cell, BitboardPosition.colorIndex(jugadorPropi));
+        
+        return midaGrupMaxim >= 3;
+    }
+    
+    /**
+     * Enumera tots els torns complets d'una posició amb el mateix generador
+     * que la cerca ({@link #generarTorns}). Fa servir {@link PlayerMonteCarlo}
+     * per expandir els nodes.
+     * 
+     * <p>Primer s'afegeix, per a cada primera col·locació, el torn de la
+     * política (la col·locació sola si no captura), de manera que cap primera
+     * col·locació queda sense torn. Després el pressupost de
+     * {@link #setTurnBudget(int)} es gasta en les cadenes alternatives de les
+     * captures. La política tria des del punt de vista del jugador que té el
+     * torn a l'estat.</p>
+     * 
+     * <p>Fa servir les llistes del motor: no es pot cridar mentre cerca.</p>
+     * 
+     * @param estat Estat de la posició (es deixa igual)
+     * @param sortida Llista on es deixen els torns (es buida abans)
+     */
+    void enumerateTurns(GameStatusTunned estat, TurnList sortida) {
+        preparar(estat.getTopology());
+        jugadorPropi = estat.getCurrentPlayer();
+        sortida.reset();
+        TurnList torns = torns(0);
+        torns.markVisited(estat.getZobristKey());
+        MoveList captures = llista(movimentsPerNivell, 0);
+        MoveList quiets = llista(segursPerNivell, 0);
+        estat.generateMoves(captures, quiets);
+        
+        for (int i = 0; i < quiets.size(); i++) {
+            generarTorns(estat, quiets.get(i), torns, 0);
+            copiarTorns(torns, sortida);
+        }
+        for (int i = 0; i < captures.size(); i++) {
+            generarTorns(estat, captures.get(i), torns, 0);
+            copiarTorns(torns, sortida);
+        }
+        int pressupost = pressupostTorn;
+        for (int i = 0; i < captures.size() && pressupost > 0; i++) {
+            // El torn de la política ja hi és: addIfNew el descarta
+            pressupost = generarTorns(estat, captures.get(i), torns, pressupost);
+            copiarTorns(torns, sortida);
+        }
+    }
+    
+    /**
+     * Afegeix els torns d'una llista a una altra, fent servir
+     * {@link #camiTorn} com a camí auxiliar.
+     */
+    private void copiarTorns(TurnList origen, TurnList desti) {
+        for (int t = 0; t < origen.size(); t++) {
+            origen.copyTo(t, camiTorn);
+            desti.add(camiTorn);
+        }
+    }
+    
+    /**
+     * Genera els torns complets diferents que comencen per una col·locació.
+     * 
+     * <p>Una col·locació que no captura és el torn sencer. Si captura, el
+     * primer torn és el de la política de continuació
+     * ({@link #aplicarMovimentComplet}) i després s'enumeren en profunditat les altres cadenes: a cada posició de la
+     * cadena el jugador pot tancar el torn (amb la no-captura que triaria la
+     * política) o fer qualsevol de les captures disponibles. Cada col·locació
+     * de l'enumeració gasta una unitat del pressupost del node.</p>
+     * 
+     * <p>Les posicions intermèdies i finals es marquen al conjunt del node
+     * (compartit per totes les primeres col·locacions), així que les cadenes
+     * que hi tornen per un altre ordre es descarten sense explorar-les. Una
+     * primera col·locació pot acabar sense cap torn si el de la política ja
+     * l'ha generat una altra.</p>
+     * 
+     * @param estat Estat del node (es deixa igual en acabar)
+     * @param primerMov Primera col·locació del torn
+     * @param torns Llista del node; es buiden els torns però no el conjunt
+     * @param pressupost Col·locacions que queden per enumerar al node
+     * @return Pressupost que queda després de l'enumeració
+     */
+    private int generarTorns(GameStatusTunned estat, int primerMov, TurnList torns, int pressupost) {
+        torns.clear();
+        BitboardPosition posicio = estat.getPosition();
+        boolean captura = posicio.getNeighbourCount(primerMov, posicio.getTurn()) > 0
+                && posicio.captureSize(primerMov) > 0;
+        camiTorn.clear();
+        if (!captura) {
+            // Una col·locació tranquil·la és un torn sencer i no es pot repetir
+            camiTorn.add(primerMov);
+            torns.add(camiTorn);
+            return pressupost;
+        }
+        
+        int marca = estat.getUndoDepth();
+        aplicarMovimentComplet(estat, primerMov, camiTorn);
+        if (!torns.addIfNew(camiTorn, estat.getZobristKey())) {
+            tornsRepetits++;
+        }
+        estat.unmakeTo(marca);
+        
+        if (pressupost > 0) {
+            pressupostRestant = pressupost;
+            camiTorn.clear();
+            camiTorn.add(primerMov);
+            estat.placeStone(primerMov);
+            if (estat.isGameOver()) {
+                torns.addIfNew(camiTorn, estat.getZobristKey());
+            } else if (torns.markVisited(estat.getZobristKey())) {
+                enumerarCadena(estat, torns, 0);
+            } else {
+                tornsRepetits++;
+            }
+            estat.unmakeTo(marca);
+            pressupost = pressupostRestant;
+        }
+        return pressupost;
+    }
+    
+    /**
+     * Enumera les continuacions d'una cadena de captures a partir d'una
+     * posició on el jugador ha capturat i torna a tirar. El camí fins aquí
+     * és a {@link #camiTorn}.
+     * 
+     * @param estat Estat enmig del torn (es deixa igual en acabar)
+     * @param torns Llista on afegir els torns acabats
+     * @param ply Col·locacions de la cadena després de la primera
+     */
+    private void enumerarCadena(GameStatusTunned estat, TurnList torns, int ply) {
+        if (capturesTorn[ply] == null) {
+            capturesTorn[ply] = new MoveList(topologia.getNumCells());
+            quietsTorn[ply] = new MoveList(topologia.getNumCells());
+        }
+        MoveList captures = capturesTorn[ply];
+        MoveList quiets = quietsTorn[ply];
+        estat.generateMoves(captures, quiets);
+        
+        if (captures.isEmpty() && quiets.isEmpty()) {
+            torns.addIfNew(camiTorn, estat.getZobristKey());
+            return;
+        }
         
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(pos);
-            if (estat.isInBounds(adj) && estat.getColor(adj) == jugadorPropi) {
-                aliatsAdjacents++;
-                int mida = estat.getGroupSize(adj);
-                midaGrupMaxim = Math.max(midaGrupMaxim, mida);
+        int llargada = camiTorn.size();
+        if (!quiets.isEmpty() && pressupostRestant > 0) {
+            pressupostRestant--;
+            int tancament = seleccionarMovimentSegur(estat, quiets);
+            if (tancament < 0) {
+                tancament = triarMovimentMaximaDistancia(estat, quiets);
+            }
+            int marca = estat.getUndoDepth();
+            estat.placeStone(tancament);
+            camiTorn.add(tancament);
+            if (!torns.addIfNew(camiTorn, estat.getZobristKey())) {
+                tornsRepetits++;
             }
+            camiTorn.setSize(llargada);
+            estat.unmakeTo(marca);
         }
         
-        return aliatsAdjacents > 0 && midaGrupMaxim >= 3;
+        for (int i = 0; i < captures.size() && pressupostRestant > 0; i++) {
+            pressupostRestant--;
+            int cap = captures.get(i);
+            int marca = estat.getUndoDepth();
+            estat.placeStone(cap);
+            camiTorn.add(cap);
+            if (estat.isGameOver()) {
+                torns.addIfNew(camiTorn, estat.getZobristKey());
+            } else if (torns.markVisited(estat.getZobristKey())) {
+                enumerarCadena(estat, torns, ply + 1);
+            } else {
+                tornsRepetits++;
+            }
+            camiTorn.setSize(llargada);
+            estat.unmakeTo(marca);
+        }
     }
     
     /**
@@ -481,62 +2189,18 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * Si no hi ha moviments segurs disponibles, s'utilitza el moviment amb
      * màxima distància a l'enemic.</p>
      * 
+     * <p>El camí es calcula aplicant-lo sobre el mateix estat i desfent-lo
+     * al final, per tant l'estat queda com estava.</p>
+     * 
      * @param estat Estat del joc
-     * @param primerMov Primer moviment del camí
-     * @return Llista completa de punts que formen el camí del moviment
+     * @param primerMov Casella del primer moviment del camí
+     * @param cami Llista on escriure les caselles del camí (es buida abans)
      */
-    private List<Point> construirCamiComplet(GameStatusTunned estat, Point primerMov) {
-        List<Point> cami = new ArrayList<>();
-        GameStatusTunned nouEstat = new GameStatusTunned(estat);
-        PlayerType jugadorActual = nouEstat.getCurrentPlayer();
-        
-        cami.add(primerMov);
-        nouEstat.placeStone(primerMov);
-        
-        int maxIteracions = 50;
-        int iter = 0;
-        
-        while (nouEstat.getCurrentPlayer() == jugadorActual && !nouEstat.isGameOver() && iter < maxIteracions) {
-            List<Point> captureMoves = nouEstat.getCaptureMoves();
-            List<Point> nonCaptureMoves = nouEstat.getNonCaptureMoves();
-            
-            Point seguentMov = null;
-            
-            if (!captureMoves.isEmpty()) {
-                List<Point> capturesSegures = new ArrayList<>();
-                for (Point cap : captureMoves) {
-                    GameStatusTunned test = new GameStatusTunned(nouEstat);
-                    test.placeStone(cap);
-                    if (!potSerCapturatEnSeguent(test, cap)) {
-                        capturesSegures.add(cap);
-                    }
-                }
-                
-                if (!capturesSegures.isEmpty()) {
-                    seguentMov = seleccionarMillorCaptura(nouEstat, capturesSegures);
-                } else if (!nonCaptureMoves.isEmpty()) {
-                    seguentMov = seleccionarMovimentSegur(nouEstat, nonCaptureMoves);
-                } else if (!captureMoves.isEmpty()) {
-                    seguentMov = seleccionarMillorCaptura(nouEstat, captureMoves);
-                }
-            } else if (!nonCaptureMoves.isEmpty()) {
-                seguentMov = seleccionarMovimentSegur(nouEstat, nonCaptureMoves);
-            }
-            
-            if (seguentMov == null && !nonCaptureMoves.isEmpty()) {
-                seguentMov = triarMovimentMaximaDistancia(nouEstat, nonCaptureMoves);
-            }
-            
-            if (seguentMov == null) {
-                break;
-            }
-            
-            cami.add(seguentMov);
-            nouEstat.placeStone(seguentMov);
-            iter++;
-        }
-        
-        return cami;
+    private void construirCamiComplet(GameStatusTunned estat, int primerMov, MoveList cami) {
+        cami.clear();
+        int marca = estat.getUndoDepth();
+        aplicarMovimentComplet(estat, primerMov, cami);
+        estat.unmakeTo(marca);
     }
     
     /**
@@ -551,7 +2215,9 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * 
      * <p><b>Diferència amb construirCamiComplet():</b> Aquest mètode modifica
      * directament l'estat proporcionat, mentre que construirCamiComplet()
-     * retorna la llista de punts sense modificar l'estat original.</p>
+     * retorna la llista de caselles i deixa l'estat com estava. Per tornar a l'estat
+     * original cal desar {@link GameStatusTunned#getUndoDepth()} abans i cridar
+     * {@link GameStatusTunned#unmakeTo(int)} després.</p>
      * 
      * <p><b>CRÍTICO:</b> Utilitza el mateix sistema de filtratge que
      * construirCamiComplet() per evitar errors "Invalid move sequence".</p>
@@ -565,51 +2231,56 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * </ul>
      * 
      * @param estat Estat del joc a modificar (és modificat durant l'execució)
-     * @param mov Primer moviment del camí a aplicar
+     * @param mov Casella del primer moviment del camí a aplicar
+     * @param cami Llista on afegir les caselles col·locades, o null si no cal
      */
-    private void aplicarMovimentComplet(GameStatusTunned estat, Point mov) {
-        PlayerType jugadorActual = estat.getCurrentPlayer();
+    private void aplicarMovimentComplet(GameStatusTunned estat, int mov, MoveList cami) {
+        BitboardPosition posicio = estat.getPosition();
+        int jugadorActual = posicio.getTurn();
         estat.placeStone(mov);
+        if (cami != null) cami.add(mov);
         
         int maxIteracions = 50;
         int iter = 0;
         
-        while (estat.getCurrentPlayer() == jugadorActual && !estat.isGameOver() && iter < maxIteracions) {
-            List<Point> captureMoves = estat.getCaptureMoves();
-            List<Point> nonCaptureMoves = estat.getNonCaptureMoves();
+        while (posicio.getTurn() == jugadorActual && !estat.isGameOver() && iter < maxIteracions) {
+            estat.generateMoves(capturesCadena, quietsCadena);
             
-            Point millorMov = null;
+            int millorMov = -1;
             
-            if (!captureMoves.isEmpty()) {
-                List<Point> capturesSegures = new ArrayList<>();
-                for (Point cap : captureMoves) {
-                    GameStatusTunned test = new GameStatusTunned(estat);
-                    test.placeStone(cap);
-                    if (!potSerCapturatEnSeguent(test, cap)) {
+            if (!capturesCadena.isEmpty()) {
+                capturesSegures.clear();
+                for (int i = 0; i < capturesCadena.size(); i++) {
+                    int cap = capturesCadena.get(i);
+                    estat.placeStone(cap);
+                    boolean vulnerable = potSerCapturatEnSeguent(estat, cap);
+                    estat.unmakeMove();
+                    if (!vulnerable) {
                         capturesSegures.add(cap);
                     }
                 }
                 
                 if (!capturesSegures.isEmpty()) {
                     millorMov = seleccionarMillorCaptura(estat, capturesSegures);
-                } else if (!nonCaptureMoves.isEmpty()) {
-                    millorMov = seleccionarMovimentSegur(estat, nonCaptureMoves);
-                } else if (!captureMoves.isEmpty()) {
-                    millorMov = seleccionarMillorCaptura(estat, captureMoves);
+                } else if (!quietsCadena.isEmpty()) {
+                    millorMov = seleccionarMovimentSegur(estat, quietsCadena);
+                } else {
+                    millorMov = seleccionarMillorCaptura(estat, capturesCadena);
                 }
-            } else if (!nonCaptureMoves.isEmpty()) {
-                millorMov = seleccionarMovimentSegur(estat, nonCaptureMoves);
+            } else if (!quietsCadena.isEmpty()) {
+                millorMov = seleccionarMovimentSegur(estat, quietsCadena);
             }
             
-            if (millorMov == null && !nonCaptureMoves.isEmpty()) {
-                millorMov = triarMovimentMaximaDistancia(estat, nonCaptureMoves);
+            if (millorMov < 0 && !quietsCadena.isEmpty()) {
+                millorMov = triarMovimentMaximaDistancia(estat, quietsCadena);
             }
             
-            if (millorMov == null) {
+            if (millorMov < 0) {
                 break;
             }
             
             estat.placeStone(millorMov);
+            if (cami != null) cami.add(millorMov);
             iter++;
         }
     }
@@ -642,25 +2313,14 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * aproximació per evitar moviments òbviament dolents.</p>
      * 
      * @param estat Estat del joc després de col·locar la pedra
-     * @param pos Posició a comprovar
+     * @param cell Casella a comprovar
      * @return true si és probable que sigui capturada en el següent torn, false altrament
      */
-    private boolean potSerCapturatEnSeguent(GameStatusTunned estat, Point pos) {
-        PlayerType enemic = jugadorPropi.opposite();
+    private boolean potSerCapturatEnSeguent(GameStatusTunned estat, int cell) {
+        int enemic = BitboardPosition.colorIndex(jugadorPropi.opposite());
+        int midaGrupEnemicMax = estat.midaMaximaVeina(cell, enemic);
         
-        int veinsEnemics = 0;
-        int midaGrupEnemicMax = 0;
-        
-        for (Dir dir : Dir.values()) {
-            Point adj = dir.add(pos);
-            if (estat.isInBounds(adj) && estat.getColor(adj) == enemic) {
-                veinsEnemics++;
-                int mida = estat.getGroupSize(adj);
-                midaGrupEnemicMax = Math.max(midaGrupEnemicMax, mida);
-            }
-        }
-        
-        return veinsEnemics > 0 && midaGrupEnemicMax >= 3;
+        return midaGrupEnemicMax >= 3;
     }
     
     /**
@@ -697,25 +2357,29 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * 
      * @param estat Estat actual del joc
      * @param nonCaptures Llista de moviments no-captura disponibles
-     * @return Millor moviment segur, o null si no n'hi ha cap que compleixi els criteris
+     * @return Casella del millor moviment segur, o -1 si no n'hi ha cap que compleixi els criteris
      */
-    private Point seleccionarMovimentSegur(GameStatusTunned estat, List<Point> nonCaptures) {
-        if (nonCaptures.isEmpty()) return null;
-        
-        PlayerType enemic = jugadorPropi.opposite();
-        int centre = estat.getSize() / 2;
-        
-        List<Point> movimentsSegurs = new ArrayList<>();
-        for (Point mov : nonCaptures) {
-            int distMin = calcularDistanciaMinima(estat, mov, enemic);
+    private int seleccionarMovimentSegur(GameStatusTunned estat, MoveList nonCaptures) {
+        if (nonCaptures.isEmpty()) return -1;
+        
+        BitboardPosition posicio = estat.getPosition();
+        int propi = BitboardPosition.colorIndex(jugadorPropi);
+        int enemic = propi ^ 1;
+        
+        MoveList movimentsSegurs = quietsSegurs;
+        movimentsSegurs.clear();
+        for (int i = 0; i < nonCaptures.size(); i++) {
+            int mov = nonCaptures.get(i);
+            int distMin = posicio.nearestStoneDistance(mov, enemic);
             if (distMin >= 3) {
                 movimentsSegurs.add(mov);
             }
         }
         
         if (movimentsSegurs.isEmpty()) {
-            for (Point mov : nonCaptures) {
-                int distMin = calcularDistanciaMinima(estat, mov, enemic);
+            for (int i = 0; i < nonCaptures.size(); i++) {
+                int mov = nonCaptures.get(i);
+                int distMin = posicio.nearestStoneDistance(mov, enemic);
                 if (distMin == 2 && esTrampaValida(estat, mov)) {
                     movimentsSegurs.add(mov);
                 }
@@ -723,26 +2387,18 @@ public class PlayerMiniMax implements IPlayer, IAuto {
         }
         
         if (movimentsSegurs.isEmpty()) {
-            return null;
+            return -1;
         }
         
-        Point millor = movimentsSegurs.get(0);
+        int millor = movimentsSegurs.get(0);
         int millorValor = Integer.MIN_VALUE;
         
-        for (Point mov : movimentsSegurs) {
-            int distCentre = Math.abs(mov.x - centre) + Math.abs(mov.y - centre);
-            int valor = (estat.getSize() - distCentre) * 5;
+        for (int i = 0; i < movimentsSegurs.size(); i++) {
+            int mov = movimentsSegurs.get(i);
+            int valor = (estat.getSize() - distanciaCentre[mov]) * 5;
             
-            int aliatsAdjacents = 0;
-            int midaGrupMaximAdjacent = 0;
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(mov);
-                if (estat.isInBounds(adj) && estat.getColor(adj) == jugadorPropi) {
-                    aliatsAdjacents++;
-                    int midaGrup = estat.getGroupSize(adj);
-                    midaGrupMaximAdjacent = Math.max(midaGrupMaximAdjacent, midaGrup);
-                }
-            }
+            int aliatsAdjacents = posicio.getNeighbourCount(mov, propi);
+            int midaGrupMaximAdjacent = estat.midaMaximaVeina(mov, propi);
             
             valor += midaGrupMaximAdjacent * 80;
             valor += aliatsAdjacents * 30;
@@ -789,22 +2445,22 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * 
      * @param estat Estat actual del joc
      * @param nonCaptures Llista de moviments no-captura disponibles
-     * @return Moviment amb màxima distància a l'enemic, prioritzant centre en cas d'empat;
-     *         retorna null si la llista està buida
+     * @return Casella amb màxima distància a l'enemic, prioritzant centre en cas d'empat;
+     *         retorna -1 si la llista està buida
      */
-    private Point triarMovimentMaximaDistancia(GameStatusTunned estat, List<Point> nonCaptures) {
-        if (nonCaptures.isEmpty()) return null;
+    private int triarMovimentMaximaDistancia(GameStatusTunned estat, MoveList nonCaptures) {
+        if (nonCaptures.isEmpty()) return -1;
         
-        PlayerType enemic = jugadorPropi.opposite();
-        int centre = estat.getSize() / 2;
+        int enemic = BitboardPosition.colorIndex(jugadorPropi.opposite());
         
-        Point millor = nonCaptures.get(0);
+        int millor = nonCaptures.get(0);
         int millorDistancia = calcularDistanciaMinima(estat, millor, enemic);
-        int millorValorCentre = Math.abs(millor.x - centre) + Math.abs(millor.y - centre);
+        int millorValorCentre = distanciaCentre[millor];
         
-        for (Point mov : nonCaptures) {
+        for (int i = 0; i < nonCaptures.size(); i++) {
+            int mov = nonCaptures.get(i);
             int dist = calcularDistanciaMinima(estat, mov, enemic);
-            int distCentre = Math.abs(mov.x - centre) + Math.abs(mov.y - centre);
+            int distCentre = distanciaCentre[mov];
             
             if (dist > millorDistancia) {
                 millor = mov;
@@ -826,18 +2482,19 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * la que captura més pedres enemigues, maximitzant el guany material
      * immediat.</p>
      * 
-     * <p><b>Mètode d'estimació:</b> Utilitza {@link GameStatusTunned#estimateCaptureValue(Point)}
-     * que compta les pedres enemigues adjacents a la posició de captura.</p>
+     * <p><b>Mètode de valoració:</b> Utilitza {@link BitboardPosition#captureSize(int)},
+     * que retorna el nombre exacte de pedres que captura el moviment a partir
+     * del graf de grups.</p>
      * 
      * <h3>Estratègia greedy:</h3>
      * <pre>
      * Per cada captura disponible:
-     *   1. Estimar valor de captura (pedres enemigues adjacents)
+     *   1. Calcular pedres capturades (mida dels grups enemics tocats)
      *   2. Seleccionar la de màxim valor
      * </pre>
      * 
-     * <p><b>Limitació:</b> Aquesta és una estimació simple que no considera
-     * captures en cadena o conseqüències estratègiques. És suficient per a
+     * <p><b>Limitació:</b> El valor és exacte per a la captura immediata però
+     * no considera captures en cadena o conseqüències estratègiques. És suficient per a
      * la majoria de situacions però podria millorar-se amb look-ahead.</p>
      * 
      * <h3>Exemple:</h3>
@@ -849,15 +2506,17 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * 
      * @param estat Estat actual del joc
      * @param captures Llista de moviments de captura disponibles
-     * @return Moviment de captura amb màxim valor estimat; retorna el primer
-     *         de la llista si tots tenen el mateix valor
+     * @return Casella de la captura amb màxim valor estimat; retorna la primera
+     *         de la llista si totes tenen el mateix valor
      */
-    private Point seleccionarMillorCaptura(GameStatusTunned estat, List<Point> captures) {
-        Point millor = captures.get(0);
-        int millorValor = estat.estimateCaptureValue(millor);
-        
-        for (Point mov : captures) {
-            int valor = estat.estimateCaptureValue(mov);
+    private int seleccionarMillorCaptura(GameStatusTunned estat, MoveList captures) {
+        BitboardPosition posicio = estat.getPosition();
+        int millor = captures.get(0);
+        int millorValor = posicio.captureSize(millor);
+        
+        for (int i = 1; i < captures.size(); i++) {
+            int mov = captures.get(i);
+            int valor = posicio.captureSize(mov);
             if (valor > millorValor) {
                 millorValor = valor;
                 millor = mov;
@@ -928,6 +2587,12 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * <p><b>Fase del Joc:</b> El control del centre té pes x5 en fase inicial
      * (< 30% del tauler ple) i pes x1 en fase mitjana/final.</p>
      * 
+     * <p>La vulnerabilitat es compta al mateix recorregut que la resta de
+     * factors, a l'arrel de cada grup. El terme de captures es manté encara
+     * que la cerca de quiescència estigui activa: sense ell l'heurística
+     * deixa de premiar tenir captures a punt per al torn següent, que és més
+     * que el que la quiescència resol.</p>
+     * 
      * @param estat Estat del joc a avaluar
      * @return Valor heurístic des del punt de vista del jugador propi
      *         (positiu = avantatjós, negatiu = desavantatjós)
@@ -937,44 +2602,46 @@ public class PlayerMiniMax implements IPlayer, IAuto {
         
         int pedresPropi = 0;
         int pedresEnemic = 0;
-        Map<Point, Boolean> visitats = new HashMap<>();
-        Map<Point, Integer> midaGrupPropi = new HashMap<>();
-        Map<Point, Integer> midaGrupEnemic = new HashMap<>();
         int grupsPropi = 0;
         int grupsEnemic = 0;
         int midaGrupPropiMaxim = 0;
         int midaGrupEnemicMaxim = 0;
         
         int controlCentre = 0;
+        int vulnerabilitat = 0;
         int centre = estat.getSize() / 2;
         
-        for (int i = 0; i < estat.getSquareSize(); i++) {
-            for (int j = 0; j < estat.getSquareSize(); j++) {
-                Point p = new Point(i, j);
-                if (!estat.isInBounds(p)) continue;
+        BitboardPosition posicio = estat.getPosition();
+        HexTopology topo = posicio.getTopology();
+        int propi = BitboardPosition.colorIndex(jugadorPropi);
+        
+        // Cada grup es compta una sola vegada, a la seva pedra arrel
+        for (int cell = 0; cell < topo.getNumCells(); cell++) {
+            int color = posicio.color(cell);
+            if (color == BitboardPosition.BUIT) continue;
+            
+            int distCentre = Math.abs(topo.getX(cell) - centre) + Math.abs(topo.getY(cell) - centre);
+            boolean esArrel = posicio.groupRoot(cell) == cell;
+            
+            if (color == propi) {
+                pedresPropi++;
+                controlCentre += (estat.getSize() - distCentre) * 10;
                 
-                PlayerType color = estat.getColor(p);
+                if (esArrel) {
+                    grupsPropi++;
+                    int midaGrup = posicio.groupSize(cell);
+                    midaGrupPropiMaxim = Math.max(midaGrupPropiMaxim, midaGrup);
+                    vulnerabilitat -= vulnerabilitatGrup(midaGrup, posicio.groupEnemyNeighbours(cell));
+                }
+            } else {
+                pedresEnemic++;
+                controlCentre -= (estat.getSize() - distCentre) * 10;
                 
-                if (color == jugadorPropi) {
-                    pedresPropi++;
-                    int distCentre = Math.abs(i - centre) + Math.abs(j - centre);
-                    controlCentre += (estat.getSize() - distCentre) * 10;
-                    
-                    if (!visitats.containsKey(p)) {
-                        int mida = marcarGrupAmbMida(estat, p, jugadorPropi, visitats, midaGrupPropi);
-                        grupsPropi++;
-                        midaGrupPropiMaxim = Math.max(midaGrupPropiMaxim, mida);
-                    }
-                } else if (color != null) {
-                    pedresEnemic++;
-                    int distCentre = Math.abs(i - centre) + Math.abs(j - centre);
-                    controlCentre -= (estat.getSize() - distCentre) * 10;
-                    
-                    if (!visitats.containsKey(p)) {
-                        int mida = marcarGrupAmbMida(estat, p, color, visitats, midaGrupEnemic);
-                        grupsEnemic++;
-                        midaGrupEnemicMaxim = Math.max(midaGrupEnemicMaxim, mida);
-                    }
+                if (esArrel) {
+                    grupsEnemic++;
+                    int midaGrup = posicio.groupSize(cell);
+                    midaGrupEnemicMaxim = Math.max(midaGrupEnemicMaxim, midaGrup);
+                    vulnerabilitat += vulnerabilitatGrup(midaGrup, posicio.groupEnemyNeighbours(cell));
                 }
             }
         }
@@ -1004,16 +2671,16 @@ public class PlayerMiniMax implements IPlayer, IAuto {
             score -= (pedresPropi - pedresEnemic - 15) * 15;
         }
         
-        int mobilitat = estat.getMoves().size();
+        estat.generateMoves(capturesAvaluacio, quietsAvaluacio);
+        int mobilitat = capturesAvaluacio.size() + quietsAvaluacio.size();
         if (estat.getCurrentPlayer() == jugadorPropi) {
             score += mobilitat * 20;
         } else {
             score -= mobilitat * 20;
         }
         
-        score += avaluarCapturesPotencials(estat) * 150;
-        score -= avaluarVulnerabilitat(estat, jugadorPropi) * 60;
-        score += avaluarVulnerabilitat(estat, jugadorPropi.opposite()) * 60;
+        score += avaluarCapturesPotencials(estat, capturesAvaluacio) * 150;
+        score += vulnerabilitat * 60;
         
         if (pedresEnemic == 0 && pedresPropi > 0) {
             score += VICTORIA / 2;
@@ -1039,19 +2706,20 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * </ul>
      * 
      * @param estat Estat del joc
+     * @param captureMoves Captures disponibles a l'estat (ja generades per l'heurística)
      * @return Puntuació de captures potencials (0 si no és el torn del jugador)
      */
-    private int avaluarCapturesPotencials(GameStatusTunned estat) {
+    private int avaluarCapturesPotencials(GameStatusTunned estat, MoveList captureMoves) {
         int captureScore = 0;
         
         if (estat.getCurrentPlayer() != jugadorPropi) {
             return 0;
         }
         
-        List<Point> captureMoves = estat.getCaptureMoves();
+        BitboardPosition posicio = estat.getPosition();
         
-        for (Point mov : captureMoves) {
-            int valor = estat.estimateCaptureValue(mov);
+        for (int i = 0; i < captureMoves.size(); i++) {
+            int valor = posicio.captureSize(captureMoves.get(i));
             
             if (valor > 0) {
                 captureScore += valor * 20;
@@ -1066,73 +2734,7 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     }
     
     /**
-     * Compta quants veïns enemics únics té un grup complet.
-     * 
-     * <p>Aquest mètode utilitza BFS (Breadth-First Search) per recórrer tot
-     * el grup començant des d'un punt inicial, i compta el nombre de pedres
-     * enemigues diferents que són adjacents a qualsevol pedra del grup.</p>
-     * 
-     * <h3>Ús estratègic:</h3>
-     * <p>El nombre de veïns enemics indica la <b>vulnerabilitat</b> d'un grup:</p>
-     * <ul>
-     *   <li><b>0 veïns enemics:</b> Grup aïllat (molt segur)</li>
-     *   <li><b>1-2 veïns enemics:</b> Grup amb pressió lleu</li>
-     *   <li><b>3+ veïns enemics:</b> Grup envoltat (molt vulnerable)</li>
-     * </ul>
-     * 
-     * <h3>Algorisme:</h3>
-     * <ol>
-     *   <li>Inicialitzar conjunt de pedres visitades del grup</li>
-     *   <li>Inicialitzar conjunt de veïns enemics únics</li>
-     *   <li>BFS des del punt inicial:
-     *     <ul>
-     *       <li>Per cada pedra del grup, examinar veïns</li>
-     *       <li>Si veí és del mateix color → afegir a BFS</li>
-     *       <li>Si veí és enemic → afegir a conjunt de veïns enemics</li>
-     *     </ul>
-     *   </li>
-     *   <li>Retornar mida del conjunt de veïns enemics</li>
-     * </ol>
-     * 
-     * <p><b>Nota:</b> Utilitza conjunts (Set) per evitar comptar la mateixa
-     * pedra enemiga múltiples vegades si és adjacent a diverses pedres del grup.</p>
-     * 
-     * @param estat Estat actual del joc
-     * @param inici Qualsevol punt del grup a analitzar
-     * @param player Jugador propietari del grup
-     * @return Nombre de pedres enemigues úniques adjacents al grup
-     */
-    private int comptarVeinsEnemicsGrup(GameStatusTunned estat, Point inici, PlayerType player) {
-        PlayerType enemic = player.opposite();
-        Set<Point> grupVisitat = new HashSet<>();
-        Set<Point> veinsEnemics = new HashSet<>();
-        Stack<Point> pila = new Stack<>();
-        
-        pila.push(inici);
-        
-        while (!pila.isEmpty()) {
-            Point actual = pila.pop();
-            if (grupVisitat.contains(actual)) continue;
-            grupVisitat.add(actual);
-            
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(actual);
-                if (!estat.isInBounds(adj)) continue;
-                
-                PlayerType colorAdj = estat.getColor(adj);
-                if (colorAdj == player && !grupVisitat.contains(adj)) {
-                    pila.push(adj);
-                } else if (colorAdj == enemic) {
-                    veinsEnemics.add(adj);
-                }
-            }
-        }
-        
-        return veinsEnemics.size();
-    }
-    
-    /**
-     * Avalua la vulnerabilitat dels grups d'un jugador.
+     * Avalua la vulnerabilitat d'un grup.
      * 
      * <p>Un grup és vulnerable si:</p>
      * <ul>
@@ -1141,154 +2743,86 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * </ul>
      * 
      * <p>Grups vulnerables tenen més probabilitat de ser capturats,
-     * per tant es penalitzen en l'heurística.</p>
+     * per tant es penalitzen en l'heurística. La mida i els veïns enemics
+     * es llegeixen de l'union-find de la posició.</p>
      * 
-     * @param estat Estat del joc
-     * @param player Jugador del qual avaluar vulnerabilitat
+     * @param midaGrup Pedres del grup
+     * @param veinsEnemics Pedres enemigues adjacents al grup
      * @return Puntuació de vulnerabilitat (més alt = més vulnerable)
      */
-    private int avaluarVulnerabilitat(GameStatusTunned estat, PlayerType player) {
+    private static int vulnerabilitatGrup(int midaGrup, int veinsEnemics) {
         int vulnerabilitat = 0;
-        Set<Point> visitats = new HashSet<>();
-        
-        for (int i = 0; i < estat.getSquareSize(); i++) {
-            for (int j = 0; j < estat.getSquareSize(); j++) {
-                Point p = new Point(i, j);
-                if (!estat.isInBounds(p) || visitats.contains(p)) continue;
-                if (estat.getColor(p) != player) continue;
-                
-                int midaGrup = estat.getGroupSize(p);
-                
-                Stack<Point> pila = new Stack<>();
-                pila.push(p);
-                while (!pila.isEmpty()) {
-                    Point actual = pila.pop();
-                    if (visitats.contains(actual)) continue;
-                    visitats.add(actual);
-                    
-                    for (Dir dir : Dir.values()) {
-                        Point adj = dir.add(actual);
-                        if (estat.isInBounds(adj) && estat.getColor(adj) == player && !visitats.contains(adj)) {
-                            pila.push(adj);
-                        }
-                    }
-                }
-                
-                int veinsEnemics = comptarVeinsEnemicsGrup(estat, p, player);
-                
-                if (midaGrup <= 3 && veinsEnemics > 0) {
-                    vulnerabilitat += (4 - midaGrup) * veinsEnemics * 8;
-                }
-                
-                if (midaGrup >= 4 && midaGrup <= 6 && veinsEnemics >= 3) {
-                    vulnerabilitat += veinsEnemics * 3;
-                }
-            }
-        }
         
-        return vulnerabilitat;
-    }
-    
-    /**
-     * Marca tots els punts d'un grup i retorna la seva mida.
-     * 
-     * <p>Aquest mètode utilitza BFS per identificar totes les pedres connectades
-     * d'un mateix color (un "grup") i simultàniament:</p>
-     * <ul>
-     *   <li>Marca cada pedra com a visitada (evita processar-la múltiples vegades)</li>
-     *   <li>Emmagatzema la mida del grup per a cada pedra</li>
-     *   <li>Retorna la mida total del grup</li>
-     * </ul>
-     * 
-     * <h3>Ús en heurística:</h3>
-     * <p>Aquest mètode és fonamental per calcular factors de la heurística:</p>
-     * <ul>
-     *   <li><b>Nombre de grups:</b> Comptar quants grups independents tenim</li>
-     *   <li><b>Mida màxima de grup:</b> Identificar el nostre grup més fort</li>
-     *   <li><b>Distribució:</b> Evitar fragmentació excessiva</li>
-     * </ul>
-     * 
-     * <h3>Algorisme BFS:</h3>
-     * <ol>
-     *   <li>Inicialitzar pila amb punt inicial</li>
-     *   <li>Mentre hi hagi punts a processar:
-     *     <ul>
-     *       <li>Extreure punt de la pila</li>
-     *       <li>Marcar com a visitat</li>
-     *       <li>Afegir a llista de pedres del grup</li>
-     *       <li>Per cada veí del mateix color no visitat → afegir a pila</li>
-     *     </ul>
-     *   </li>
-     *   <li>Comptar pedres totals del grup</li>
-     *   <li>Assignar aquesta mida a totes les pedres del grup</li>
-     * </ol>
-     * 
-     * <h3>Exemple:</h3>
-     * <pre>
-     * Tauler:
-     * N N .    Grup de 5 pedres connectades
-     * N N .    → Mida = 5
-     * N . .    → Totes les 5 pedres tindran midaGrup[punt] = 5
-     * </pre>
-     * 
-     * <p><b>Paràmetres modificats:</b> Els mapes 'visitats' i 'midaGrup' són
-     * modificats durant l'execució. 'visitats' s'actualitza amb tots els punts
-     * del grup, i 'midaGrup' s'actualitza amb la mida per a cada punt.</p>
-     * 
-     * @param estat Estat actual del joc
-     * @param inici Punt inicial del grup (qualsevol pedra del grup)
-     * @param color Jugador propietari del grup
-     * @param visitats Mapa de punts ja visitats (s'actualitza durant l'execució)
-     * @param midaGrup Mapa que emmagatzema la mida del grup per cada punt (s'actualitza)
-     * @return Mida total del grup (nombre de pedres connectades)
-     */
-    private int marcarGrupAmbMida(GameStatusTunned estat, Point inici, PlayerType color, 
-                                   Map<Point, Boolean> visitats, Map<Point, Integer> midaGrup) {
-        Stack<Point> pila = new Stack<>();
-        List<Point> pedresGrup = new ArrayList<>();
-        pila.push(inici);
-        
-        while (!pila.isEmpty()) {
-            Point actual = pila.pop();
-            if (visitats.containsKey(actual)) continue;
-            
-            visitats.put(actual, true);
-            pedresGrup.add(actual);
-            
-            for (Dir dir : Dir.values()) {
-                Point adj = dir.add(actual);
-                if (estat.isInBounds(adj) && estat.getColor(adj) == color && !visitats.containsKey(adj)) {
-                    pila.push(adj);
-                }
-            }
+        if (midaGrup <= 3 && veinsEnemics > 0) {
+            vulnerabilitat += (4 - midaGrup) * veinsEnemics * 8;
         }
         
-        int mida = pedresGrup.size();
-        for (Point p : pedresGrup) {
-            midaGrup.put(p, mida);
+        if (midaGrup >= 4 && midaGrup <= 6 && veinsEnemics >= 3) {
+            vulnerabilitat += veinsEnemics * 3;
         }
         
-        return mida;
+        return vulnerabilitat;
     }
     
     /**
-     * Entrada de la taula de transposició.
-     * 
-     * <p>Emmagatzema el valor heurístic d'un estat ja avaluat juntament amb
-     * la profunditat a la qual es va calcular. Això permet reutilitzar
-     * càlculs i accelerar significativament la cerca.</p>
-     * 
-     * <p><b>Nota:</b> Només s'utilitza l'entrada si la profunditat guardada
-     * és >= que la profunditat actual de cerca, garantint que el valor
-     * és prou precís.</p>
+     * Punt de divisió de la cerca Young Brothers Wait: un node que reparteix
+     * els germans petits entre tasques.
+     * 
+     * <p>L'alpha és compartit: cada tasca el llegeix en començar i hi deixa el
+     * seu valor en acabar. Quan una tasca arriba a beta el punt es marca
+     * tallat; les tasques el consulten (amb els seus pares) a cada node, de
+     * manera que un tall atura també les divisions niades a sota. La resta de
+     * camps només els toca el motor que ha creat el punt, abans de llançar
+     * les tasques o després d'esperar-les; cada tasca escriu només la seva
+     * posició dels comptadors.</p>
      */
-    private static class TranspositionEntry {
-        int valor;
-        int profunditat;
+    private static final class SplitPoint {
+        /** Punt de divisió de la tasca on s'ha creat aquest, o null. */
+        final SplitPoint pare;
+        /** Motor que ha creat el punt; el del punt de més amunt porta el timeout. */
+        final PlayerMiniMax propietari;
+        /** Millor valor conegut al node (alpha compartit). */
+        final AtomicInteger alpha;
+        /** Beta del node. */
+        final int beta;
+        /** Alguna tasca ha arribat a beta. */
+        volatile boolean tallat;
+        
+        /** Millor valor de les tasques (o del límit de futilitat). */
+        int millorValor = -INFINIT;
+        /** Primera casella del torn del millor valor, o -1. */
+        int millorMoviment = -1;
+        /** Índex de la tasca del millor valor. */
+        int fillMillor;
+        /** Nodes de cada tasca, incloses les seves divisions niades. */
+        long[] nodesTasca;
+        /** Punts de divisió niats creats per cada tasca. */
+        long[] puntsTasca;
+        /** Tasques niades creades per cada tasca. */
+        long[] tasquesTasca;
+        /** Nodes de la tasca niada més gran de cada tasca. */
+        long[] maximTasca;
+        
+        SplitPoint(SplitPoint pare, PlayerMiniMax propietari, int alpha, int beta) {
+            this.pare = pare;
+            this.propietari = propietari;
+            this.alpha = new AtomicInteger(alpha);
+            this.beta = beta;
+        }
         
-        TranspositionEntry(int valor, int profunditat) {
-            this.valor = valor;
-            this.profunditat = profunditat;
+        /**
+         * @return true si aquest punt o un pare s'ha tallat, o si s'ha
+         *         exhaurit el temps de la cerca
+         */
+        boolean aturat() {
+            for (SplitPoint p = this; ; p = p.pare) {
+                if (p.tallat) {
+                    return true;
+                }
+                if (p.pare == null) {
+                    return p.propietari.externalTimeout;
+                }
+            }
         }
     }
 }
@@ -8,7 +8,10 @@ import edu.upc.epsevg.prop.oust.GameStatus;
 import edu.upc.epsevg.prop.oust.IAuto;
 import edu.upc.epsevg.prop.oust.IPlayer;
 import edu.upc.epsevg.prop.oust.PlayerMove;
+import edu.upc.epsevg.prop.oust.PlayerType;
 import edu.upc.epsevg.prop.oust.SearchType;
+import java.awt.Point;
+import java.util.List;
 
 /**
  * Implementació d'un jugador Minimax amb Iterative Deepening Search (IDS).
@@ -25,6 +28,47 @@ import edu.upc.epsevg.prop.oust.SearchType;
  *   <li><b>Ordenació de moviments:</b> Les cerques anteriors ajuden a l'ordenació</li>
  * </ul>
  * 
+ * <p><b>Motor persistent:</b> Totes les iteracions i tots els torns de la
+ * partida fan servir el mateix PlayerMiniMax. La seva taula de transposició
+ * i l'ordre de l'arrel sobreviuen entre iteracions (cada una comença pel
+ * millor moviment de l'anterior) i entre torns (les entrades antigues es
+ * reutilitzen fins que l'edat les fa substituïbles), de manera que el cost
+ * total s'acosta al de l'última iteració.</p>
+ * 
+ * <p><b>Finestres d'aspiració:</b> A partir de la segona iteració, cada
+ * profunditat comença amb una finestra estreta al voltant del valor de
+ * l'anterior i només s'eixampla (amb els passos configurats) si el valor
+ * en surt. El nombre de re-cerques de l'últim torn es pot consultar amb
+ * {@link #getAspirationResearches()}.</p>
+ * 
+ * <p><b>Lazy SMP:</b> Amb {@link #setThreads(int)} més gran que 1, a partir
+ * de la segona iteració hi ha fils ajudants que fan el seu propi aprofundiment
+ * iteratiu sobre la mateixa posició, amb la mateixa taula de transposició
+ * (sense bloquejos, vegeu {@link TranspositionTable}). Els ajudants senars
+ * van sempre una profunditat per davant i cada ajudant ordena els empats
+ * d'una altra manera, de manera que omplen la taula amb branques que el fil
+ * principal troba després ja resoltes. El moviment retornat és sempre el del
+ * fil principal; el timeout atura tots els fils.</p>
+ * 
+ * <p><b>Ponder:</b> Amb {@link #setPonder(boolean)}, després de retornar un
+ * moviment es preveu la resposta de l'enemic i es continua cercant la posició
+ * esperada en un fil de fons mentre l'enemic pensa. La resposta no surt de la
+ * variant principal del motor: la valoració i el filtre de moviments segurs
+ * són des del punt de vista del jugador propi i hi modelen malament l'enemic.
+ * En comptes d'això, un motor petit fa una cerca curta des del punt de vista
+ * de l'enemic (vegeu {@link #PROFUNDITAT_PREDICCIO}). A la crida següent el fil s'atura abans de
+ * començar: si la posició és l'esperada, l'aprofundiment continua des de
+ * l'última iteració completa del ponder; si no, la cerca real aprofita
+ * igualment la taula calenta. El fil només corre fora de {@link #move(GameStatus)},
+ * així que el temps del torn propi no canvia.</p>
+ * 
+ * <p><b>Gestió del temps:</b> Un {@link TimeManager} mesura el cost i el
+ * factor de ramificació de cada iteració i no en comença cap que no pugui
+ * acabar abans del timeout, ni cap més quan el millor moviment és estable i
+ * ja s'ha passat el límit tou. Les posicions inestables (el millor moviment
+ * canvia o el valor oscil·la) poden fer servir el temps fins al límit dur.
+ * Es desactiva amb {@link #setTimeManagement(boolean)}.</p>
+ * 
  * <h2>Funcionament:</h2>
  * <ol>
  *   <li>Cerca amb profunditat 1 (ràpid)</li>
@@ -58,11 +102,69 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
     private volatile boolean timeout;
     
     /** 
-     * Referència al PlayerMiniMax que s'està executant actualment.
+     * Motor Minimax reutilitzat per totes les iteracions i tots els torns.
      * Permet interrompre l'execució quan es rep un timeout.
-     * És volatile per assegurar visibilitat entre threads.
      */
-    private volatile PlayerMiniMax currentPlayerMiniMax;
+    private final PlayerMiniMax motor;
+    
+    /** Amplades per defecte de la finestra d'aspiració (després, infinit). */
+    public static final int[] PASSOS_ASPIRACIO = {150, 600, 2400};
+    
+    /** Re-cerques d'aspiració de totes les iteracions de l'últim torn. */
+    private int reCerquesAspiracio;
+    
+    /** Taula de transposició del motor principal, compartida amb els ajudants. */
+    private final TranspositionTable taula;
+    /** Amplades de la finestra d'aspiració, per configurar els ajudants. */
+    private final int[] passosAspiracio;
+    /** Motors dels fils ajudants de Lazy SMP (buit amb un sol fil). */
+    private PlayerMiniMax[] ajudants;
+    /** Nodes explorats per cada ajudant a l'últim torn. */
+    private long[] nodesAjudants;
+    /**
+     * Indica als ajudants que el torn s'ha acabat, sigui per timeout o
+     * perquè el gestor del temps no comença cap més iteració.
+     */
+    private volatile boolean ajudantsAturats;
+    
+    /** Nombre de fils per defecte: només el principal. */
+    public static final int FILS_PER_DEFECTE = 1;
+    
+    /**
+     * Profunditat de la cerca que preveu la resposta de l'enemic per al
+     * ponder. Senar, com les iteracions que acaben amb torn propi.
+     */
+    public static final int PROFUNDITAT_PREDICCIO = 3;
+    
+    /** Gestor del temps de l'aprofundiment iteratiu. */
+    private final TimeManager gestorTemps = new TimeManager();
+    /** Indica si el gestor del temps pot aturar l'aprofundiment abans del timeout. */
+    private boolean gestioTemps = true;
+    
+    /** Pensa durant el torn de l'enemic (vegeu {@link #setPonder(boolean)}). */
+    private boolean ponder;
+    /** Motor de la predicció de la resposta de l'enemic (es crea la primera vegada). */
+    private PlayerMiniMax predictor;
+    /** Indica si s'està dins de {@link #move(GameStatus)}; fora, el timeout no toca el motor. */
+    private boolean pensant;
+    /** Fil del ponder, o null si no n'hi ha cap en marxa. */
+    private Thread filPonder;
+    /** Demana al fil del ponder que s'aturi. */
+    private volatile boolean aturarPonder;
+    /** Posició esperada al torn següent (després de la resposta prevista). */
+    private PositionSnapshot posicioPonder;
+    /** Moviment de l'última iteració completa del ponder, o null. */
+    private PlayerMove movimentPonder;
+    /** Profunditat de l'última iteració completa del ponder. */
+    private int profunditatPonder;
+    /** Nodes de les iteracions completes del ponder. */
+    private long nodesPonder;
+    /** Torns en què s'ha engegat el ponder sobre una resposta prevista. */
+    private int prediccionsPonder;
+    /** Torns en què la posició real ha estat l'esperada pel ponder. */
+    private int encertsPonder;
+    /** Torns en què s'ha aprofitat el resultat d'una iteració interrompuda. */
+    private int iteracionsSalvades;
     
     /**
      * Constructor per defecte del jugador Minimax amb IDS.
@@ -72,9 +174,152 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
      * durant l'execució segons el temps disponible.</p>
      */
     public PlayerMiniMaxIDS() {
+        this(PASSOS_ASPIRACIO);
+    }
+    
+    /**
+     * Constructor amb els passos de la finestra d'aspiració.
+     * 
+     * @param passosAspiracio Amplades creixents de la finestra al voltant del
+     *        valor de la iteració anterior, o null per cercar sempre amb la
+     *        finestra completa
+     */
+    public PlayerMiniMaxIDS(int[] passosAspiracio) {
+        this(passosAspiracio, FILS_PER_DEFECTE);
+    }
+    
+    /**
+     * Constructor amb els passos de la finestra d'aspiració i el nombre de fils.
+     * 
+     * @param passosAspiracio Amplades creixents de la finestra d'aspiració, o null
+     * @param fils Fils de cerca, comptant el principal (vegeu {@link #setThreads(int)})
+     */
+    public PlayerMiniMaxIDS(int[] passosAspiracio, int fils) {
         this.name = "MiniMaxIDS";
         this.timeout = false;
-        this.currentPlayerMiniMax = null;
+        this.passosAspiracio = passosAspiracio == null ? null : passosAspiracio.clone();
+        this.taula = new TranspositionTable();
+        this.motor = new PlayerMiniMax(1, taula, true);
+        this.motor.setAspirationSteps(passosAspiracio);
+        setThreads(fils);
+    }
+    
+    /**
+     * Canvia el nombre de fils de cerca (Lazy SMP). Amb 1 només cerca el fil
+     * principal. Un bon valor és {@code Runtime.getRuntime().availableProcessors()}.
+     * No s'ha de cridar mentre el jugador pensa.
+     * 
+     * @param fils Fils de cerca, comptant el principal (mínim 1)
+     */
+    public void setThreads(int fils) {
+        int n = Math.max(1, fils) - 1;
+        PlayerMiniMax[] nous = new PlayerMiniMax[n];
+        for (int k = 0; k < n; k++) {
+            if (ajudants != null && k < ajudants.length) {
+                nous[k] = ajudants[k];
+            } else {
+                nous[k] = new PlayerMiniMax(1, taula, false);
+                nous[k].setAspirationSteps(passosAspiracio);
+                nous[k].setOrderingSeed(k + 1);
+            }
+        }
+        ajudants = nous;
+        nodesAjudants = new long[n];
+    }
+    
+    /** @return Fils de cerca, comptant el principal */
+    public int getThreads() {
+        return ajudants.length + 1;
+    }
+    
+    /**
+     * Activa o desactiva el gestor del temps. Desactivat, l'aprofundiment
+     * continua sempre fins al timeout.
+     * 
+     * @param activa true per deixar que el gestor aturi l'aprofundiment
+     */
+    public void setTimeManagement(boolean activa) {
+        this.gestioTemps = activa;
+    }
+    
+    /** @return Gestor del temps (per fixar el temps per torn o consultar-ne les mesures) */
+    public TimeManager getTimeManager() {
+        return gestorTemps;
+    }
+    
+    /**
+     * Activa o desactiva el ponder: cercar durant el torn de l'enemic la
+     * posició que s'espera després de la seva resposta. No s'ha de cridar
+     * mentre el jugador pensa.
+     * 
+     * @param ponder true per pensar durant el torn de l'enemic
+     */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+        if (!ponder) {
+            stopPondering();
+        }
+    }
+    
+    /** @return true si el ponder està activat */
+    public boolean isPonder() {
+        return ponder;
+    }
+    
+    /**
+     * @return Torns en què la posició real ha estat la que esperava el ponder
+     *         (i se n'ha aprofitat la cerca)
+     */
+    public int getPonderHits() {
+        return encertsPonder;
+    }
+    
+    /** @return Torns en què s'ha engegat el ponder sobre una resposta prevista */
+    public int getPonderPredictions() {
+        return prediccionsPonder;
+    }
+    
+    /**
+     * @return Torns en què s'ha retornat el moviment d'una iteració
+     *         interrompuda perquè ja superava el de l'anterior
+     */
+    public int getSalvagedIterations() {
+        return iteracionsSalvades;
+    }
+    
+    /**
+     * Atura el fil del ponder, si n'hi ha, i n'espera el final. Es pot cridar
+     * en acabar la partida perquè el fil no continuï consumint CPU.
+     */
+    public void stopPondering() {
+        if (filPonder == null) {
+            return;
+        }
+        aturarPonder = true;
+        predictor.setExternalTimeout(true);
+        motor.setExternalTimeout(true);
+        try {
+            filPonder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        filPonder = null;
+    }
+    
+    /**
+     * @return Re-cerques per finestres d'aspiració fallides, sumades per a
+     *         totes les iteracions de l'últim torn
+     */
+    public int getAspirationResearches() {
+        return reCerquesAspiracio;
+    }
+    
+    /**
+     * @return Percentatge de talls beta produïts pel primer moviment a
+     *         l'última iteració de l'últim torn (qualitat de l'ordenació)
+     */
+    public double getFirstMoveCutoffRate() {
+        return motor.getFirstMoveCutoffRate();
     }
     
     /**
@@ -88,11 +333,16 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
      * l'última profunditat completada amb èxit.</p>
      */
     @Override
-    public void timeout() {
+    public synchronized void timeout() {
         timeout = true;
+        if (!pensant) {
+            return; // Timeout tardà: el motor potser ja fa el ponder
+        }
+        gestorTemps.timeoutReceived();
         // Notificar immediatament al PlayerMiniMax que s'està executant
-        if (currentPlayerMiniMax != null) {
-            currentPlayerMiniMax.setExternalTimeout(true);
+        motor.setExternalTimeout(true);
+        for (PlayerMiniMax ajudant : ajudants) {
+            ajudant.setExternalTimeout(true);
         }
     }
     
@@ -112,7 +362,7 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
      * <p>Aquest mètode implementa l'estratègia IDS:</p>
      * <ol>
      *   <li>Inicia amb profunditat 1</li>
-     *   <li>Crea una instància de PlayerMiniMax amb aquesta profunditat</li>
+     *   <li>Configura el motor PlayerMiniMax amb aquesta profunditat</li>
      *   <li>Executa la cerca Minimax</li>
      *   <li>Si es completa abans del timeout, guarda el resultat</li>
      *   <li>Incrementa la profunditat i repeteix</li>
@@ -121,8 +371,22 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
      * 
      * <p><b>Gestió del timeout:</b> Si el timeout arriba mentre PlayerMiniMax
      * s'està executant, aquest és notificat immediatament i interromp la cerca.
-     * El resultat parcial es descarta i es retorna l'última profunditat
-     * completada amb èxit.</p>
+     * Normalment el resultat parcial es descarta i es retorna l'última
+     * profunditat completada amb èxit. Si la iteració interrompuda ja havia
+     * cercat sencer el millor moviment de l'anterior i després n'ha trobat un
+     * de millor ({@link PlayerMiniMax#hasSalvageableResult()}), es retorna
+     * aquest, amb la profunditat de la iteració interrompuda.</p>
+     * 
+     * <p><b>Fils ajudants:</b> S'engeguen després de la iteració de
+     * profunditat 1 del fil principal, quan la taula ja està preparada per a
+     * la posició nova, i s'esperen abans de retornar perquè cap no continuï
+     * escrivint a la taula durant el torn de l'enemic.</p>
+     * 
+     * <p><b>Ponder:</b> Primer s'atura el fil del ponder. Si la posició és la
+     * que esperava, el resultat de la seva última iteració completa passa a
+     * ser el millor moviment i l'aprofundiment continua a la profunditat
+     * següent. En acabar, si el ponder està activat, s'engega el fil per al
+     * torn següent.</p>
      * 
      * <p><b>Resultat garantit:</b> Aquest mètode sempre retorna un moviment vàlid,
      * encara que només hagi completat la cerca a profunditat 1.</p>
@@ -131,36 +395,62 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
      * @return Millor moviment trobat dins del temps disponible, incloent:
      *         <ul>
      *           <li>Llista de punts que formen el camí del moviment</li>
-     *           <li>Nombre total de nodes explorats en totes les iteracions</li>
+     *           <li>Nombre total de nodes explorats en totes les iteracions (i tots els fils)</li>
      *           <li>Profunditat màxima assolida abans del timeout</li>
      *           <li>Tipus de cerca (MINIMAX_IDS)</li>
      *         </ul>
      */
     @Override
     public PlayerMove move(GameStatus s) {
-        timeout = false;
+        stopPondering();
+        boolean encert = movimentPonder != null && posicioPonder.equals(PositionSnapshot.of(s));
+        synchronized (this) {
+            timeout = false;
+            pensant = true;
+            motor.setExternalTimeout(false);
+            gestorTemps.startMove();
+        }
+        reCerquesAspiracio = 0;
         
         PlayerMove millorMoviment = null;
         int profunditatActual = 1;
         int profunditatMaximaAssolida = 0;
         long nodesExploratsTotals = 0;
+        Thread[] fils = null;
+        
+        if (encert) {
+            // La cerca del ponder és d'aquesta mateixa posició: es continua
+            encertsPonder++;
+            millorMoviment = movimentPonder;
+            profunditatMaximaAssolida = profunditatPonder;
+            profunditatActual = profunditatPonder + 1;
+            nodesExploratsTotals = nodesPonder;
+        }
+        movimentPonder = null;
         
         // Iterative Deepening: Incrementar profunditat fins timeout
         while (!timeout) {
-            // Crear nova instància de PlayerMiniMax amb profunditat actual
-            PlayerMiniMax jugadorMiniMax = new PlayerMiniMax(profunditatActual);
+            if (profunditatActual >= 2 && fils == null) {
+                fils = engegarAjudants(s);
+            }
             
-            // Establir com a jugador actual per poder-lo interrompre
-            currentPlayerMiniMax = jugadorMiniMax;
+            // Reutilitzar el motor amb la profunditat actual
+            motor.setProfunditat(profunditatActual);
             
             // Cridar move() del PlayerMiniMax
-            PlayerMove movimentActual = jugadorMiniMax.move(s);
-            
-            // Netejar referència
-            currentPlayerMiniMax = null;
+            long iniciIteracio = System.nanoTime();
+            PlayerMove movimentActual = motor.move(s);
+            reCerquesAspiracio += motor.getAspirationResearches();
             
-            // Si timeout durant la cerca, descartar resultat parcial
+            // Si timeout durant la cerca, el resultat parcial només es fa
+            // servir si ha superat el millor moviment de la iteració anterior
             if (timeout) {
+                if (motor.hasSalvageableResult() && !movimentActual.getPoints().isEmpty()) {
+                    millorMoviment = movimentActual;
+                    profunditatMaximaAssolida = profunditatActual;
+                    nodesExploratsTotals += movimentActual.getNumerOfNodesExplored();
+                    iteracionsSalvades++;
+                }
                 break;
             }
             
@@ -169,6 +459,11 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
                 millorMoviment = movimentActual;
                 profunditatMaximaAssolida = profunditatActual;
                 nodesExploratsTotals += movimentActual.getNumerOfNodesExplored();
+                // No començar una iteració que no acabarà o que no cal
+                if (!gestorTemps.iterationDone(System.nanoTime() - iniciIteracio, movimentActual.getPoints(),
+                        motor.getRootValue()) && gestioTemps) {
+                    break;
+                }
             }
             
             // Incrementar profunditat per la següent iteració
@@ -180,6 +475,10 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
             }
         }
         
+        if (fils != null) {
+            nodesExploratsTotals += aturarAjudants(fils);
+        }
+        
         // Si no s'ha trobat cap moviment (cas extrem), retornar moviment buit
         if (millorMoviment == null) {
             millorMoviment = new PlayerMove(java.util.Collections.emptyList(), 0, 0, SearchType.MINIMAX_IDS);
@@ -193,6 +492,134 @@ public class PlayerMiniMaxIDS implements IPlayer, IAuto {
             );
         }
         
+        synchronized (this) {
+            pensant = false;
+        }
+        if (ponder && !millorMoviment.getPoints().isEmpty()) {
+            engegarPonder(s, millorMoviment.getPoints());
+        }
         return millorMoviment;
     }
+    
+    /**
+     * Engega el fil del ponder. El fil preveu la resposta de l'enemic al
+     * moviment retornat amb una cerca curta del predictor i fa aprofundiment
+     * iteratiu amb el motor principal sobre la posició resultant, on tornarà
+     * a tirar el jugador propi, fins que {@link #stopPondering()} l'atura.
+     * Desa el resultat de l'última iteració completa. No fa res si la
+     * partida s'acaba o si després de la resposta no torna el torn propi.
+     * 
+     * @param s Estat on s'ha decidit el moviment
+     * @param moviment Caselles del moviment retornat
+     */
+    private void engegarPonder(GameStatus s, List<Point> moviment) {
+        GameStatus despres = new GameStatusTunned(s);
+        for (Point p : moviment) {
+            despres.placeStone(p);
+        }
+        if (despres.isGameOver() || despres.getCurrentPlayer() == s.getCurrentPlayer()) {
+            return;
+        }
+        if (predictor == null) {
+            predictor = new PlayerMiniMax(PROFUNDITAT_PREDICCIO, 1);
+        }
+        PlayerType propi = s.getCurrentPlayer();
+        
+        posicioPonder = null;
+        movimentPonder = null;
+        profunditatPonder = 0;
+        nodesPonder = 0;
+        aturarPonder = false;
+        predictor.setExternalTimeout(false);
+        motor.setExternalTimeout(false);
+        filPonder = new Thread(() -> {
+            // La predicció també es fa durant el torn de l'enemic
+            List<Point> resposta = predictor.move(despres).getPoints();
+            if (aturarPonder || resposta.isEmpty()) {
+                return;
+            }
+            GameStatus esperat = new GameStatusTunned(despres);
+            for (Point p : resposta) {
+                esperat.placeStone(p);
+            }
+            if (esperat.isGameOver() || esperat.getCurrentPlayer() != propi) {
+                return;
+            }
+            prediccionsPonder++;
+            posicioPonder = PositionSnapshot.of(esperat);
+            for (int d = 1; !aturarPonder && d <= 100; d++) {
+                motor.setProfunditat(d);
+                PlayerMove m = motor.move(esperat);
+                if (aturarPonder) {
+                    break; // Iteració interrompuda: no és fiable
+                }
+                if (!m.getPoints().isEmpty()) {
+                    movimentPonder = m;
+                    profunditatPonder = d;
+                    nodesPonder += m.getNumerOfNodesExplored();
+                }
+            }
+        }, "MiniMaxIDS-ponder");
+        filPonder.setDaemon(true);
+        filPonder.start();
+    }
+    
+    /**
+     * Engega un fil per ajudant. Cada un fa aprofundiment iteratiu sobre una
+     * còpia de l'estat fins al timeout o fins que {@link #aturarAjudants}
+     * acaba el torn; els senars comencen (i van sempre) una profunditat per
+     * davant del principal.
+     * 
+     * @param s Estat actual del joc
+     * @return Fils engegats
+     */
+    private Thread[] engegarAjudants(GameStatus s) {
+        Thread[] fils = new Thread[ajudants.length];
+        ajudantsAturats = false;
+        for (int k = 0; k < ajudants.length; k++) {
+            PlayerMiniMax ajudant = ajudants[k];
+            GameStatus copia = new GameStatusTunned(s);
+            int index = k;
+            int profunditatInicial = 2 + (k & 1);
+            // Si el timeout arriba mentre s'engega, l'ajudant ha de quedar aturat
+            ajudant.setExternalTimeout(false);
+            if (timeout) {
+                ajudant.setExternalTimeout(true);
+            }
+            nodesAjudants[k] = 0;
+            fils[k] = new Thread(() -> {
+                for (int d = profunditatInicial; !timeout && !ajudantsAturats && d <= 100; d++) {
+                    ajudant.setProfunditat(d);
+                    nodesAjudants[index] += ajudant.move(copia).getNumerOfNodesExplored();
+                }
+            }, "MiniMaxIDS-" + (k + 1));
+            fils[k].setDaemon(true);
+            fils[k].start();
+        }
+        return fils;
+    }
+    
+    /**
+     * Atura els ajudants i n'espera el final. Cada ajudant surt del bucle a
+     * la propera comprovació, encara que no hi hagi hagut timeout.
+     * 
+     * @param fils Fils engegats per {@link #engegarAjudants(GameStatus)}
+     * @return Nodes explorats pels ajudants
+     */
+    private long aturarAjudants(Thread[] fils) {
+        long nodes = 0;
+        ajudantsAturats = true;
+        for (PlayerMiniMax ajudant : ajudants) {
+            ajudant.setExternalTimeout(true);
+        }
+        for (int k = 0; k < fils.length; k++) {
+            try {
+                fils[k].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            nodes += nodesAjudants[k];
+        }
+        return nodes;
+    }
 }
@@ -0,0 +1,578 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.IAuto;
+import edu.upc.epsevg.prop.oust.IPlayer;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import edu.upc.epsevg.prop.oust.SearchType;
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Implementació d'un jugador Monte Carlo Tree Search amb la política UCT.
+ *
+ * <p>Cada iteració fa les quatre fases clàssiques sobre un únic estat
+ * mutable (fer/desfer, com {@link PlayerMiniMax}):</p>
+ * <ol>
+ *   <li><b>Selecció:</b> des de l'arrel baixa pels nodes totalment expandits
+ *       triant el fill amb més valor UCT,
+ *       {@code victòries/visites + C·sqrt(ln(visites pare)/visites)}.</li>
+ *   <li><b>Expansió:</b> al primer node amb torns pendents n'afegeix un a
+ *       l'atzar com a fill nou.</li>
+ *   <li><b>Simulació:</b> juga col·locacions aleatòries fins al final de la
+ *       partida (o fins a un límit de llargada, i llavors guanya qui té més
+ *       pedres). Les captures es prefereixen amb una probabilitat fixa.</li>
+ *   <li><b>Retropropagació:</b> cada node del camí suma una visita i, si el
+ *       jugador que ha fet el seu torn ha guanyat, una victòria (mitja en
+ *       cas d'empat).</li>
+ * </ol>
+ *
+ * <h2>Característiques Principals:</h2>
+ * <ul>
+ *   <li><b>Torns Complets:</b> Cada aresta de l'arbre és un torn sencer
+ *       (cadena de captures inclosa). Els torns d'un node s'enumeren la
+ *       segona vegada que s'hi arriba amb el mateix generador que
+ *       {@link PlayerMiniMax}: cada primera col·locació hi és almenys amb el
+ *       torn de la política, i les cadenes que acaben a la mateixa posició es
+ *       guarden una sola vegada ({@link TurnList}).</li>
+ *   <li><b>Reutilització de l'arbre:</b> En començar un torn es busca, entre
+ *       els fills i els néts de l'arrel anterior, el node de la posició
+ *       actual (per la clau de Zobrist), i el subarbre que penja de la jugada
+ *       realment feta passa a ser l'arrel nova amb totes les seves visites.</li>
+ *   <li><b>Anytime:</b> Itera fins que el framework crida {@link #timeout()}
+ *       (o fins a un nombre màxim de simulacions) i sempre té un moviment
+ *       vàlid: el fill de l'arrel amb més visites.</li>
+ *   <li><b>Memòria acotada:</b> Quan l'arbre arriba a la mida màxima deixa
+ *       d'expandir i les simulacions comencen a les fulles.</li>
+ * </ul>
+ *
+ * <p><b>Estadístiques:</b> El {@link PlayerMove} retornat porta la mida de
+ * l'arbre com a nodes explorats, la profunditat màxima de selecció (en
+ * torns) com a profunditat i les simulacions per segon a
+ * {@link PlayerMove#getH()}.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ * @see PlayerMiniMaxIDS
+ */
+public class PlayerMonteCarlo implements IPlayer, IAuto {
+
+    /** Constant d'exploració per defecte de la fórmula UCT (arrel de 2). */
+    public static final double EXPLORACIO_PER_DEFECTE = Math.sqrt(2);
+    /** Mida màxima per defecte de l'arbre, en nodes. */
+    public static final int MIDA_MAXIMA_ARBRE = 500_000;
+    /** Probabilitat que la simulació jugui una captura quan n'hi ha. */
+    public static final double PROBABILITAT_CAPTURA = 0.5;
+    /** Col·locacions màximes d'una simulació, en múltiples de caselles del tauler. */
+    private static final int LLARGADA_SIMULACIO = 3;
+
+    /** Nom identificatiu del jugador. */
+    private final String name;
+    /** Constant d'exploració de la fórmula UCT. */
+    private final double exploracio;
+    /** Generador de les expansions i de les simulacions. */
+    private final Random aleatori;
+    /** Mida màxima de l'arbre, en nodes. */
+    private int midaMaxima;
+    /** Simulacions màximes per torn; 0 per no limitar-les. */
+    private long maximSimulacions;
+
+    /**
+     * Flag de timeout del framework.
+     * Volatile per assegurar visibilitat entre threads.
+     */
+    private volatile boolean timeout;
+    /** Indica si hi ha un torn en marxa; fora d'un torn el timeout s'ignora. */
+    private boolean pensant;
+
+    /** Arrel de l'arbre (la posició de l'últim torn), o null. */
+    private Node arrel;
+    /** Nodes de l'arbre. */
+    private int midaArbre;
+    /** Nodes reutilitzats de l'arbre anterior a l'últim torn. */
+    private int nodesReutilitzats;
+    /** Simulacions de l'últim torn. */
+    private long simulacions;
+    /** Simulacions per segon de l'últim torn. */
+    private double simulacionsPerSegon;
+    /** Profunditat màxima de selecció de l'últim torn, en torns. */
+    private int profunditatMaxima;
+
+    /** Topologia per a la qual s'han preparat les llistes. */
+    private HexTopology topologia;
+    /** Torns del node que s'està enumerant, amb el conjunt de posicions vistes. */
+    private TurnList tornsNode;
+    /** Generador dels torns complets (el de la cerca Minimax). */
+    private final PlayerMiniMax generador;
+    /** Captures disponibles durant la simulació. */
+    private MoveList capturesSimulacio;
+    /** No-captures disponibles durant la simulació. */
+    private MoveList quietsSimulacio;
+    /** Camí de selecció de la iteració actual. */
+    private final ArrayList<Node> cami = new ArrayList<>();
+
+    /**
+     * Node de l'arbre: la posició després d'un torn.
+     *
+     * <p>Els torns pendents d'expandir es guarden seguits en un sol
+     * {@code int[]} i s'alliberen quan s'han expandit tots.</p>
+     */
+    private static final class Node {
+        /** Caselles del torn que porta a aquest node (buit a l'arrel). */
+        final int[] torn;
+        /** Clau de Zobrist de la posició després del torn. */
+        final long clau;
+        /** Color (0 o 1) del jugador que ha fet el torn. */
+        final int jugador;
+        /** Fills expandits. */
+        final ArrayList<Node> fills = new ArrayList<>(4);
+        /** Caselles dels torns sense expandir; null si encara no s'han enumerat. */
+        int[] pendents;
+        /** Inici de cada torn a {@link #pendents} (n'hi ha un més que torns). */
+        int[] iniciPendents;
+        /** Índexs dels torns sense expandir; els primers {@link #numPendents} són vigents. */
+        int[] ordrePendents;
+        /** Torns sense expandir. */
+        int numPendents;
+        /** Visites del node. */
+        int visites;
+        /** Victòries del {@link #jugador} a les simulacions que hi han passat. */
+        double victories;
+
+        Node(int[] torn, long clau, int jugador) {
+            this.torn = torn;
+            this.clau = clau;
+            this.jugador = jugador;
+        }
+    }
+
+    /**
+     * Crea un jugador amb la constant d'exploració per defecte.
+     */
+    public PlayerMonteCarlo() {
+        this(EXPLORACIO_PER_DEFECTE);
+    }
+
+    /**
+     * Crea un jugador.
+     *
+     * @param exploracio Constant d'exploració de la fórmula UCT
+     */
+    public PlayerMonteCarlo(double exploracio) {
+        this(exploracio, new Random());
+    }
+
+    /**
+     * Crea un jugador amb un generador concret (per reproduir partides).
+     *
+     * @param exploracio Constant d'exploració de la fórmula UCT
+     * @param aleatori Generador de les expansions i de les simulacions
+     */
+    public PlayerMonteCarlo(double exploracio, Random aleatori) {
+        this.name = "MonteCarlo";
+        this.exploracio = exploracio;
+        this.aleatori = aleatori;
+        this.generador = new PlayerMiniMax(1);
+        this.midaMaxima = MIDA_MAXIMA_ARBRE;
+        this.maximSimulacions = 0;
+        this.timeout = false;
+    }
+
+    /**
+     * Fixa la mida màxima de l'arbre. Quan s'hi arriba les simulacions
+     * comencen a les fulles sense expandir-les.
+     *
+     * @param nodes Nodes com a màxim (mínim 1)
+     */
+    public void setMaxTreeSize(int nodes) {
+        this.midaMaxima = Math.max(1, nodes);
+    }
+
+    /**
+     * Limita les simulacions per torn, per fer cerques reproduïbles sense
+     * dependre del timeout.
+     *
+     * @param simulacions Simulacions com a màxim; 0 per no limitar-les
+     */
+    public void setMaxPlayouts(long simulacions) {
+        this.maximSimulacions = Math.max(0, simulacions);
+    }
+
+    /** @return Simulacions de l'últim torn */
+    public long getPlayouts() {
+        return simulacions;
+    }
+
+    /** @return Simulacions per segon de l'últim torn */
+    public double getPlayoutsPerSecond() {
+        return simulacionsPerSegon;
+    }
+
+    /** @return Nodes de l'arbre en acabar l'últim torn */
+    public int getTreeSize() {
+        return midaArbre;
+    }
+
+    /** @return Nodes reutilitzats de l'arbre anterior a l'últim torn */
+    public int getReusedNodes() {
+        return nodesReutilitzats;
+    }
+
+    /**
+     * Mètode cridat pel framework quan s'exhaureix el temps: la cerca acaba
+     * la iteració en curs i retorna el millor moviment.
+     */
+    @Override
+    public synchronized void timeout() {
+        if (pensant) {
+            timeout = true;
+        }
+    }
+
+    /**
+     * Retorna el nom identificatiu del jugador.
+     *
+     * @return Nom del jugador ("MonteCarlo")
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Decideix el moviment amb iteracions MCTS fins al timeout.
+     *
+     * @param s Estat actual del joc
+     * @return Torn del fill de l'arrel amb més visites, incloent:
+     *         <ul>
+     *           <li>Camí complet de punts</li>
+     *           <li>Mida de l'arbre com a nodes explorats</li>
+     *           <li>Profunditat màxima de selecció, en torns</li>
+     *           <li>Tipus de cerca (MONTECARLO), amb les simulacions per segon a {@code getH()}</li>
+     *         </ul>
+     */
+    @Override
+    public PlayerMove move(GameStatus s) {
+        synchronized (this) {
+            timeout = false;
+            pensant = true;
+        }
+        try {
+            return cercar(s);
+        } finally {
+            synchronized (this) {
+                pensant = false;
+            }
+        }
+    }
+
+    /**
+     * Cos de {@link #move}: prepara l'arrel i itera fins al timeout.
+     */
+    private PlayerMove cercar(GameStatus s) {
+        long inici = System.nanoTime();
+        simulacions = 0;
+        profunditatMaxima = 0;
+
+        GameStatusTunned estat = new GameStatusTunned(s);
+        HexTopology topo = estat.getTopology();
+        preparar(topo);
+        int jugadorArrel = BitboardPosition.colorIndex(s.getCurrentPlayer());
+        reutilitzarArbre(estat.getZobristKey(), jugadorArrel);
+
+        if (arrel.pendents == null) {
+            enumerarTorns(estat, arrel);
+        }
+        if (arrel.fills.isEmpty() && arrel.numPendents == 0) {
+            return new PlayerMove(Collections.emptyList(), midaArbre, 0, SearchType.MONTECARLO);
+        }
+        if (arrel.fills.size() + arrel.numPendents == 1) {
+            // Un sol torn possible: no cal cercar
+            Node unic = arrel.fills.isEmpty() ? expandir(estat, arrel) : arrel.fills.get(0);
+            return resultat(unic, topo, inici);
+        }
+
+        int marca = estat.getUndoDepth();
+        while (!timeout && (maximSimulacions == 0 || simulacions < maximSimulacions)) {
+            iterar(estat);
+            estat.unmakeTo(marca);
+            simulacions++;
+        }
+
+        Node millor = null;
+        for (Node fill : arrel.fills) {
+            if (millor == null || fill.visites > millor.visites
+                    || (fill.visites == millor.visites && fill.victories > millor.victories)) {
+                millor = fill;
+            }
+        }
+        if (millor == null) {
+            // Timeout abans de la primera iteració
+            millor = expandir(estat, arrel);
+        }
+        return resultat(millor, topo, inici);
+    }
+
+    /**
+     * Construeix el moviment retornat i desa les estadístiques del torn.
+     */
+    private PlayerMove resultat(Node millor, HexTopology topo, long inici) {
+        double segons = Math.max(1, System.nanoTime() - inici) / 1e9;
+        simulacionsPerSegon = simulacions / segons;
+        List<Point> punts = new ArrayList<>(millor.torn.length);
+        for (int cell : millor.torn) {
+            punts.add(topo.toPoint(cell));
+        }
+        PlayerMove moviment = new PlayerMove(punts, midaArbre, profunditatMaxima, SearchType.MONTECARLO);
+        moviment.setH((float) simulacionsPerSegon);
+        return moviment;
+    }
+
+    /**
+     * Una iteració MCTS: selecció, expansió, simulació i retropropagació.
+     * Deixa l'estat a la posició de la fulla simulada (el crida desfà).
+     */
+    private void iterar(GameStatusTunned estat) {
+        cami.clear();
+        Node node = arrel;
+        cami.add(node);
+        while (!estat.isGameOver()) {
+            if (node.pendents == null) {
+                if (midaArbre >= midaMaxima) {
+                    break;
+                }
+                enumerarTorns(estat, node);
+            }
+            if (node.numPendents > 0) {
+                if (midaArbre >= midaMaxima) {
+                    break;
+                }
+                node = expandir(estat, node);
+                jugarTorn(estat, node.torn);
+                cami.add(node);
+                break;
+            }
+            if (node.fills.isEmpty()) {
+                break;
+            }
+            node = seleccionar(node);
+            jugarTorn(estat, node.torn);
+            cami.add(node);
+        }
+        profunditatMaxima = Math.max(profunditatMaxima, cami.size() - 1);
+
+        int guanyador = simular(estat);
+        for (int i = cami.size() - 1; i >= 0; i--) {
+            Node n = cami.get(i);
+            n.visites++;
+            if (guanyador < 0) {
+                n.victories += 0.5;
+            } else if (n.jugador == guanyador) {
+                n.victories += 1;
+            }
+        }
+    }
+
+    /**
+     * Tria el fill amb més valor UCT. Tots els fills tenen almenys una visita.
+     */
+    private Node seleccionar(Node node) {
+        double logPare = Math.log(node.visites);
+        Node millor = null;
+        double millorValor = Double.NEGATIVE_INFINITY;
+        for (Node fill : node.fills) {
+            double valor = fill.victories / fill.visites
+                    + exploracio * Math.sqrt(logPare / fill.visites);
+            if (valor > millorValor) {
+                millorValor = valor;
+                millor = fill;
+            }
+        }
+        return millor;
+    }
+
+    /**
+     * Expandeix un torn pendent triat a l'atzar. L'estat ha de ser el del
+     * node i es deixa igual.
+     *
+     * @return Fill nou
+     */
+    private Node expandir(GameStatusTunned estat, Node node) {
+        int k = aleatori.nextInt(node.numPendents);
+        int t = node.ordrePendents[k];
+        node.ordrePendents[k] = node.ordrePendents[--node.numPendents];
+        int[] torn = Arrays.copyOfRange(node.pendents, node.iniciPendents[t], node.iniciPendents[t + 1]);
+
+        int jugador = estat.getPosition().getTurn();
+        int marca = estat.getUndoDepth();
+        jugarTorn(estat, torn);
+        Node fill = new Node(torn, estat.getZobristKey(), jugador);
+        estat.unmakeTo(marca);
+
+        node.fills.add(fill);
+        midaArbre++;
+        if (node.numPendents == 0) {
+            node.pendents = new int[0];
+            node.iniciPendents = null;
+            node.ordrePendents = null;
+        }
+        return fill;
+    }
+
+    /**
+     * Juga les caselles d'un torn.
+     */
+    private static void jugarTorn(GameStatusTunned estat, int[] torn) {
+        for (int cell : torn) {
+            estat.placeStone(cell);
+        }
+    }
+
+    /**
+     * Simula la partida amb col·locacions aleatòries des de l'estat actual.
+     *
+     * @return Color del guanyador, o -1 si la simulació acaba en empat de pedres
+     */
+    private int simular(GameStatusTunned estat) {
+        BitboardPosition posicio = estat.getPosition();
+        int limit = LLARGADA_SIMULACIO * topologia.getNumCells();
+        for (int i = 0; i < limit && !estat.isGameOver(); i++) {
+            estat.generateMoves(capturesSimulacio, quietsSimulacio);
+            int captures = capturesSimulacio.size();
+            int total = captures + quietsSimulacio.size();
+            if (total == 0) {
+                break;
+            }
+            int cell;
+            if (captures > 0 && aleatori.nextDouble() < PROBABILITAT_CAPTURA) {
+                cell = capturesSimulacio.get(aleatori.nextInt(captures));
+            } else {
+                int r = aleatori.nextInt(total);
+                cell = r < captures ? capturesSimulacio.get(r) : quietsSimulacio.get(r - captures);
+            }
+            estat.placeStone(cell);
+        }
+        if (estat.isGameOver()) {
+            PlayerType guanyador = estat.GetWinner();
+            return guanyador == null ? -1 : BitboardPosition.colorIndex(guanyador);
+        }
+        int pedres0 = posicio.getStoneCount(0);
+        int pedres1 = posicio.getStoneCount(1);
+        return pedres0 == pedres1 ? -1 : (pedres0 > pedres1 ? 0 : 1);
+    }
+
+    /**
+     * Enumera els torns complets d'un node i els deixa com a pendents.
+     *
+     * <p>Els genera {@link PlayerMiniMax#enumerateTurns}: primer el torn de
+     * la política de cada primera col·locació i després, amb el pressupost
+     * del generador ({@link PlayerMiniMax#PRESSUPOST_TORN} col·locacions),
+     * les cadenes de captures alternatives. Les posicions ja vistes al node
+     * (la mateixa cadena en un altre ordre) es descarten.</p>
+     *
+     * @param estat Estat a la posició del node (es deixa igual)
+     * @param node Node a enumerar
+     */
+    private void enumerarTorns(GameStatusTunned estat, Node node) {
+        generador.enumerateTurns(estat, tornsNode);
+
+        int n = tornsNode.size();
+        int caselles = 0;
+        for (int t = 0; t < n; t++) {
+            caselles += tornsNode.length(t);
+        }
+        node.pendents = new int[caselles];
+        node.iniciPendents = new int[n + 1];
+        node.ordrePendents = new int[n];
+        int p = 0;
+        for (int t = 0; t < n; t++) {
+            node.iniciPendents[t] = p;
+            node.ordrePendents[t] = t;
+            for (int i = 0; i < tornsNode.length(t); i++) {
+                node.pendents[p++] = tornsNode.cell(t, i);
+            }
+        }
+        node.iniciPendents[n] = p;
+        node.numPendents = n;
+    }
+
+    /**
+     * Fa que l'arrel sigui el node de la posició actual, reutilitzant el
+     * subarbre de l'arrel anterior si la posició hi és (l'arrel mateixa, un
+     * fill si l'enemic no ha pogut tirar, o un nét). Altrament comença un
+     * arbre nou.
+     *
+     * @param clau Clau de Zobrist de la posició actual
+     * @param jugador Color del jugador que ha de tirar
+     */
+    private void reutilitzarArbre(long clau, int jugador) {
+        Node nou = null;
+        if (arrel != null) {
+            if (arrel.clau == clau) {
+                nou = arrel;
+            }
+            for (int i = 0; nou == null && i < arrel.fills.size(); i++) {
+                Node fill = arrel.fills.get(i);
+                if (fill.clau == clau) {
+                    nou = fill;
+                }
+                for (int j = 0; nou == null && j < fill.fills.size(); j++) {
+                    if (fill.fills.get(j).clau == clau) {
+                        nou = fill.fills.get(j);
+                    }
+                }
+            }
+        }
+        if (nou == null) {
+            arrel = new Node(new int[0], clau, jugador ^ 1);
+            midaArbre = 1;
+            nodesReutilitzats = 0;
+            return;
+        }
+        arrel = nou;
+        midaArbre = comptarNodes(arrel);
+        nodesReutilitzats = midaArbre;
+    }
+
+    /**
+     * @return Nodes del subarbre (sense recursió, que l'arbre pot ser profund)
+     */
+    private static int comptarNodes(Node node) {
+        int n = 0;
+        ArrayDeque<Node> pila = new ArrayDeque<>();
+        pila.push(node);
+        while (!pila.isEmpty()) {
+            Node actual = pila.pop();
+            n++;
+            for (Node fill : actual.fills) {
+                pila.push(fill);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Prepara les llistes reutilitzades per a una topologia. Si la mida del
+     * tauler canvia, l'arbre anterior no serveix.
+     */
+    private void preparar(HexTopology topo) {
+        if (topologia != null && topologia.getNumCells() == topo.getNumCells()) {
+            return;
+        }
+        topologia = topo;
+        int n = topo.getNumCells();
+        tornsNode = new TurnList(n);
+        capturesSimulacio = new MoveList(n);
+        quietsSimulacio = new MoveList(n);
+        arrel = null;
+    }
+}
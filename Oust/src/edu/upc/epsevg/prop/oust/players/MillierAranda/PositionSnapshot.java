@@ -0,0 +1,186 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import java.util.Arrays;
+
+/**
+ * Fotografia immutable i compacta d'una posició d'Oust.
+ *
+ * <p>Només guarda el que identifica la posició: les paraules de bits de les
+ * pedres dels dos colors, el torn, la mida del tauler i la clau de Zobrist
+ * (precalculada, la mateixa que {@link BitboardPosition#getKey()}). Per a un
+ * tauler de costat 7 ocupa unes poques desenes de bytes, davant dels
+ * quilobytes d'un {@link GameStatusTunned} amb les seves estructures
+ * incrementals.</p>
+ *
+ * <p>És útil com a clau compacta per verificar entrades de la taula de
+ * transposició, per a llibres d'obertura i registres de partides, i per passar
+ * posicions entre fils: tots els camps són finals i el vector intern no surt
+ * mai de la classe, així que es pot compartir sense sincronització.</p>
+ *
+ * <p>El final forçat ({@code forceLoser}) no forma part de la posició i no es
+ * conserva; el guanyador d'un final per regles es reconstrueix en convertir.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class PositionSnapshot {
+
+    /** Mida del costat de l'hexàgon. */
+    private final int mida;
+    /** Color que ha de tirar (0 o 1). */
+    private final int torn;
+    /** Paraules de les pedres: primer les del color 0 i després les del color 1. */
+    private final long[] paraules;
+    /** Clau de Zobrist de la posició. */
+    private final long clau;
+
+    /**
+     * Crea una fotografia a partir de les dades ja empaquetades.
+     *
+     * @param mida Mida del costat
+     * @param torn Color que ha de tirar
+     * @param paraules Paraules de les pedres (no es copien)
+     * @param clau Clau de Zobrist
+     */
+    private PositionSnapshot(int mida, int torn, long[] paraules, long clau) {
+        this.mida = mida;
+        this.torn = torn;
+        this.paraules = paraules;
+        this.clau = clau;
+    }
+
+    /**
+     * Fa una fotografia d'una posició bitboard. Cost: copiar {@code 2·words}
+     * paraules; la clau ja està calculada.
+     *
+     * @param posicio Posició a fotografiar
+     * @return Fotografia immutable
+     */
+    public static PositionSnapshot of(BitboardPosition posicio) {
+        int words = posicio.getTopology().getWords();
+        long[] paraules = new long[2 * words];
+        System.arraycopy(posicio.getStones(0), 0, paraules, 0, words);
+        System.arraycopy(posicio.getStones(1), 0, paraules, words, words);
+        return new PositionSnapshot(posicio.getSize(), posicio.getTurn(), paraules, posicio.getKey());
+    }
+
+    /**
+     * Fa una fotografia d'un estat optimitzat.
+     *
+     * @param estat Estat a fotografiar
+     * @return Fotografia immutable
+     */
+    public static PositionSnapshot of(GameStatusTunned estat) {
+        return of(estat.getPosition());
+    }
+
+    /**
+     * Fa una fotografia de qualsevol estat del framework. Si no és un
+     * {@link GameStatusTunned} es converteix casella a casella.
+     *
+     * @param gs Estat del joc
+     * @return Fotografia immutable
+     */
+    public static PositionSnapshot of(GameStatus gs) {
+        if (gs instanceof GameStatusTunned) {
+            return of((GameStatusTunned) gs);
+        }
+        return of(new BitboardPosition(gs));
+    }
+
+    /**
+     * Reconstrueix una posició bitboard completa (grups, comptadors i clau)
+     * equivalent a aquesta fotografia.
+     *
+     * @return Nova posició mutable
+     */
+    public BitboardPosition toPosition() {
+        return new BitboardPosition(this);
+    }
+
+    /**
+     * Reconstrueix un estat optimitzat equivalent a aquesta fotografia.
+     *
+     * @return Nou estat mutable
+     */
+    public GameStatusTunned toGameStatus() {
+        return new GameStatusTunned(toPosition());
+    }
+
+    /** @return Mida del costat de l'hexàgon */
+    public int getSize() {
+        return mida;
+    }
+
+    /** @return Color que ha de tirar (0 o 1) */
+    public int getTurn() {
+        return torn;
+    }
+
+    /** @return Clau de Zobrist de la posició */
+    public long getKey() {
+        return clau;
+    }
+
+    /**
+     * Retorna una paraula de bits de les pedres d'un color.
+     *
+     * @param c Índex de color (0 o 1)
+     * @param w Índex de paraula
+     * @return Bits de les caselles {@code 64·w .. 64·w+63}
+     */
+    public long getWord(int c, int w) {
+        return paraules[c * (paraules.length >> 1) + w];
+    }
+
+    /** @return Nombre de paraules per color */
+    public int getWords() {
+        return paraules.length >> 1;
+    }
+
+    /**
+     * Color de la pedra d'una casella.
+     *
+     * @param cell Índex dens de la casella
+     * @return 0, 1 o {@link BitboardPosition#BUIT}
+     */
+    public int color(int cell) {
+        int words = paraules.length >> 1;
+        long bit = 1L << cell;
+        if ((paraules[cell >> 6] & bit) != 0) return 0;
+        if ((paraules[words + (cell >> 6)] & bit) != 0) return 1;
+        return BitboardPosition.BUIT;
+    }
+
+    /**
+     * Dues fotografies són iguals si tenen la mateixa mida, torn i pedres.
+     * La clau es compara primer, de manera que les diferents gairebé sempre
+     * es descarten amb una sola comparació.
+     *
+     * @param o Objecte a comparar
+     * @return true si representen la mateixa posició
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PositionSnapshot)) return false;
+        PositionSnapshot other = (PositionSnapshot) o;
+        return clau == other.clau && mida == other.mida && torn == other.torn
+                && Arrays.equals(paraules, other.paraules);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (clau ^ (clau >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "PositionSnapshot[mida=" + mida + ", torn=" + torn
+                + ", clau=" + Long.toHexString(clau) + "]";
+    }
+}
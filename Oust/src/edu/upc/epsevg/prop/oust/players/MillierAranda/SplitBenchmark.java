@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Banc de proves de l'acceleració de la divisió dels nodes interns (Young
+ * Brothers Wait) de {@link PlayerMiniMax}.
+ *
+ * <p>Genera unes quantes posicions de mig joc amb jugades aleatòries (llavor
+ * fixa, de manera que totes les execucions fan servir les mateixes) i les
+ * cerca a profunditat fixa amb cada nombre de fils, després d'una passada
+ * d'escalfament. Cada nombre de fils fa servir un motor nou, amb la taula de
+ * transposició buida, perquè cap execució aprofiti la feina d'una altra. Per a cada un mostra el temps, els
+ * nodes, l'acceleració respecte a un fil, les tasques creades i els nodes de
+ * la tasca més gran, que indica si la càrrega està ben repartida.</p>
+ *
+ * <p>Ús: {@code SplitBenchmark <mida> <profunditat> [posicions] [fils ...]}.
+ * Per defecte 4 posicions i 1, 2, 4, 8 i 16 fils.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public class SplitBenchmark {
+
+    /** Llavor de les jugades aleatòries que generen les posicions. */
+    private static final long LLAVOR = 2024;
+    /** Jugades aleatòries abans de cada posició. */
+    private static final int JUGADES_PREVIES = 12;
+
+    /**
+     * Genera les posicions del banc de proves.
+     *
+     * @param mida Mida del tauler
+     * @param nombre Nombre de posicions
+     * @return Posicions amb moviments disponibles
+     */
+    private static List<GameStatus> generarPosicions(int mida, int nombre) {
+        Random aleatori = new Random(LLAVOR);
+        List<GameStatus> posicions = new ArrayList<>();
+        while (posicions.size() < nombre) {
+            GameStatus gs = new GameStatus(mida);
+            for (int i = 0; i < JUGADES_PREVIES + posicions.size() && !gs.isGameOver(); i++) {
+                List<Point> moviments = gs.getMoves();
+                gs.placeStone(moviments.get(aleatori.nextInt(moviments.size())));
+            }
+            if (!gs.isGameOver() && !gs.getMoves().isEmpty()) {
+                posicions.add(gs);
+            }
+        }
+        return posicions;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Ús: SplitBenchmark <mida> <profunditat> [posicions] [fils ...]");
+            return;
+        }
+        int mida = Integer.parseInt(args[0]);
+        int profunditat = Integer.parseInt(args[1]);
+        int nombre = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int[] fils = {1, 2, 4, 8, 16};
+        if (args.length > 3) {
+            fils = new int[args.length - 3];
+            for (int i = 3; i < args.length; i++) {
+                fils[i - 3] = Integer.parseInt(args[i]);
+            }
+        }
+
+        List<GameStatus> posicions = generarPosicions(mida, nombre);
+        // Escalfament del JIT perquè la primera mesura no surti penalitzada
+        PlayerMiniMax escalfament = new PlayerMiniMax(Math.min(profunditat, 3));
+        for (GameStatus gs : posicions) {
+            escalfament.move(new GameStatus(gs));
+        }
+        double tempsBase = 0;
+        for (int f : fils) {
+            PlayerMiniMax motor = new PlayerMiniMax(profunditat);
+            motor.setSplitThreads(f);
+            long nodes = 0;
+            long tasques = 0;
+            long tascaMaxima = 0;
+            long inici = System.nanoTime();
+            for (GameStatus gs : posicions) {
+                PlayerMove moviment = motor.move(new GameStatus(gs));
+                nodes += moviment.getNumerOfNodesExplored();
+                tasques += motor.getSplitTasks();
+                tascaMaxima = Math.max(tascaMaxima, motor.getLargestSplitTaskNodes());
+            }
+            double segons = Math.max(1, System.nanoTime() - inici) / 1e9;
+            motor.setSplitThreads(1);
+            if (tempsBase == 0) {
+                tempsBase = segons;
+            }
+            System.out.println(String.format("fils=%2d  %.3f s  nodes=%d  %.0f nodes/s  acceleració=%.2f  tasques=%d  tasca màxima=%d",
+                    f, segons, nodes, nodes / segons, tempsBase / segons, tasques, tascaMaxima));
+        }
+    }
+}
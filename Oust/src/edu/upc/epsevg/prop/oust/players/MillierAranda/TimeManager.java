@@ -0,0 +1,222 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Gestor del temps de l'aprofundiment iteratiu de {@link PlayerMiniMaxIDS}.
+ *
+ * <p>El framework no diu quant temps hi ha per torn: crida
+ * {@code timeout()} quan s'exhaureix. El gestor l'aprèn del primer timeout
+ * (temps entre l'inici del torn i la crida) o el rep amb
+ * {@link #setMoveTime(long)}. Mentre no el coneix, no atura mai la cerca.</p>
+ *
+ * <p>Després de cada iteració completa mesura el temps que ha costat i el
+ * factor de ramificació efectiu (quant creix el temps d'una profunditat a la
+ * següent) i decideix si en comença una altra:</p>
+ * <ul>
+ *   <li><b>Límit dur:</b> no es comença una iteració si la previsió del seu
+ *       cost (temps de l'última per factor de ramificació) no hi cap. La
+ *       feina d'una iteració que no acabarà es llençaria. La previsió només
+ *       es fa servir amb tres iteracions completes o quan l'última ja ha
+ *       costat una part apreciable del torn, i el factor es limita a
+ *       l'interval 1,5-8: el cost de les primeres profunditats és
+ *       sobretot fix i el seu quocient no prediu res.</li>
+ *   <li><b>Límit tou:</b> passat aquest temps no es comença cap iteració. Es
+ *       calcula a partir d'una fracció del temps del torn i s'allarga quan
+ *       la posició ho necessita: el millor moviment acaba de canviar o el
+ *       valor ha variat molt respecte a la iteració anterior de la mateixa
+ *       paritat. S'escurça quan el millor moviment fa diverses iteracions que
+ *       no canvia.</li>
+ * </ul>
+ *
+ * <p>El valor de l'arrel oscil·la entre profunditats parells i senars, per
+ * això les comparacions de valor i de temps es fan amb la iteració de dues
+ * profunditats abans quan n'hi ha.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class TimeManager {
+
+    /** Fracció per defecte del temps del torn que fa de límit tou. */
+    public static final double FRACCIO_TOVA = 0.6;
+    /** Fracció per defecte del temps del torn que fa de límit dur. */
+    public static final double FRACCIO_DURA = 0.9;
+    /** Variació de valor entre iteracions de la mateixa paritat que es considera inestable. */
+    public static final int LLINDAR_OSCIL_LACIO = 600;
+    /** Iteracions seguides amb el mateix millor moviment per considerar-lo estable. */
+    public static final int ITERACIONS_ESTABLES = 3;
+
+    /** Factor de ramificació mínim: les primeres profunditats són massa ràpides per mesurar-lo. */
+    private static final double RAMIFICACIO_MINIMA = 1.5;
+    /** Factor de ramificació màxim que es fa servir per preveure el cost d'una iteració. */
+    private static final double RAMIFICACIO_MAXIMA = 8.0;
+    /** Iteracions completes a partir de les quals es fa servir la previsió del límit dur. */
+    private static final int ITERACIONS_PREVISIO = 3;
+    /**
+     * Fracció del temps del torn a partir de la qual una iteració és prou
+     * llarga per fiar-se de la previsió encara que n'hi hagi poques.
+     */
+    private static final double FRACCIO_ITERACIO_SIGNIFICATIVA = 0.05;
+
+    /** Fracció del temps del torn que fa de límit tou. */
+    private final double fraccioTova;
+    /** Fracció del temps del torn que fa de límit dur. */
+    private final double fraccioDura;
+    /** Temps per torn en nanosegons; 0 si encara no es coneix. */
+    private long tempsTorn;
+    /** Inici del torn actual (System.nanoTime). */
+    private long iniciTorn;
+
+    /** Temps de les dues últimes iteracions completes (la més recent primer). */
+    private final long[] tempsIteracio = new long[2];
+    /** Valor de les dues últimes iteracions completes (la més recent primer). */
+    private final int[] valorIteracio = new int[2];
+    /** Iteracions completes del torn actual. */
+    private int iteracions;
+    /** Primera casella del millor moviment de l'última iteració, o null. */
+    private Point millorAnterior;
+    /** Iteracions seguides amb el mateix millor moviment. */
+    private int estabilitat;
+    /** Factor de ramificació efectiu de l'última iteració. */
+    private double ramificacio;
+    /** Límit tou del torn actual, en nanosegons des de l'inici. */
+    private long limitTou;
+    /** Iteracions no començades perquè la previsió no hi cabia. */
+    private int iteracionsEvitades;
+
+    /**
+     * Crea un gestor amb les fraccions per defecte.
+     */
+    public TimeManager() {
+        this(FRACCIO_TOVA, FRACCIO_DURA);
+    }
+
+    /**
+     * Crea un gestor.
+     *
+     * @param fraccioTova Fracció del temps del torn del límit tou (sense ajustos)
+     * @param fraccioDura Fracció del temps del torn del límit dur
+     */
+    public TimeManager(double fraccioTova, double fraccioDura) {
+        this.fraccioTova = fraccioTova;
+        this.fraccioDura = fraccioDura;
+    }
+
+    /**
+     * Fixa el temps per torn. Amb 0 s'aprèn del primer timeout.
+     *
+     * @param ms Temps per torn en mil·lisegons
+     */
+    public void setMoveTime(long ms) {
+        tempsTorn = Math.max(0, ms) * 1_000_000L;
+    }
+
+    /** @return Temps per torn en mil·lisegons (0 si encara no es coneix) */
+    public long getMoveTime() {
+        return tempsTorn / 1_000_000L;
+    }
+
+    /**
+     * Comença un torn.
+     */
+    public void startMove() {
+        iniciTorn = System.nanoTime();
+        iteracions = 0;
+        millorAnterior = null;
+        estabilitat = 0;
+        ramificacio = 0;
+        limitTou = 0;
+    }
+
+    /**
+     * Registra un timeout del framework dins del torn: si encara no es coneix
+     * el temps per torn, és el temps des de l'inici.
+     */
+    public void timeoutReceived() {
+        if (tempsTorn == 0) {
+            tempsTorn = System.nanoTime() - iniciTorn;
+        }
+    }
+
+    /**
+     * Registra una iteració completa i decideix si se n'ha de començar una
+     * altra.
+     *
+     * @param nanos Temps que ha costat la iteració
+     * @param moviment Millor moviment de la iteració
+     * @param valor Valor de l'arrel de la iteració
+     * @return true si cal continuar amb la profunditat següent
+     */
+    public boolean iterationDone(long nanos, List<Point> moviment, int valor) {
+        Point millor = moviment.isEmpty() ? null : moviment.get(0);
+        estabilitat = millor != null && millor.equals(millorAnterior) ? estabilitat + 1 : 0;
+        millorAnterior = millor;
+
+        // Factor de ramificació: amb dues iteracions anteriors, la mitjana
+        // geomètrica dels dos últims passos, que esmorteix l'oscil·lació de paritat
+        if (iteracions >= 2 && tempsIteracio[1] > 0) {
+            ramificacio = Math.sqrt((double) nanos / tempsIteracio[1]);
+        } else if (iteracions >= 1 && tempsIteracio[0] > 0) {
+            ramificacio = (double) nanos / tempsIteracio[0];
+        } else {
+            ramificacio = 0;
+        }
+        // El cost de les primeres profunditats és sobretot fix per crida, i
+        // el quocient entre dues d'elles pot ser enorme sense voler dir res
+        ramificacio = Math.min(Math.max(ramificacio, RAMIFICACIO_MINIMA), RAMIFICACIO_MAXIMA);
+        boolean oscil = iteracions >= 2 && Math.abs(valor - valorIteracio[1]) > LLINDAR_OSCIL_LACIO;
+
+        tempsIteracio[1] = tempsIteracio[0];
+        tempsIteracio[0] = nanos;
+        valorIteracio[1] = valorIteracio[0];
+        valorIteracio[0] = valor;
+        iteracions++;
+
+        if (tempsTorn == 0) {
+            return true;
+        }
+        double factor = 1.0;
+        if (estabilitat == 0 && iteracions > 1) {
+            factor *= 1.6; // El millor moviment acaba de canviar
+        } else if (estabilitat >= ITERACIONS_ESTABLES) {
+            factor *= 0.6;
+        }
+        if (oscil) {
+            factor *= 1.5;
+        }
+        long limitDur = (long) (tempsTorn * fraccioDura);
+        limitTou = Math.min(limitDur, (long) (tempsTorn * fraccioTova * factor));
+
+        long transcorregut = System.nanoTime() - iniciTorn;
+        if (transcorregut >= limitTou) {
+            return false;
+        }
+        boolean previsioFiable = iteracions >= ITERACIONS_PREVISIO
+                || nanos >= tempsTorn * FRACCIO_ITERACIO_SIGNIFICATIVA;
+        if (previsioFiable && transcorregut + (long) (nanos * ramificacio) > limitDur) {
+            iteracionsEvitades++;
+            return false;
+        }
+        return true;
+    }
+
+    /** @return Factor de ramificació efectiu de l'última iteració */
+    public double getBranchingFactor() {
+        return ramificacio;
+    }
+
+    /** @return Límit tou de l'últim torn en mil·lisegons (0 si no s'ha calculat) */
+    public long getSoftLimit() {
+        return limitTou / 1_000_000L;
+    }
+
+    /** @return Iteracions no començades perquè la previsió del seu cost no hi cabia */
+    public int getSkippedIterations() {
+        return iteracionsEvitades;
+    }
+}
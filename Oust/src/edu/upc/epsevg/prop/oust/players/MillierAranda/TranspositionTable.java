@@ -0,0 +1,221 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import java.util.Arrays;
+
+/**
+ * Taula de transposició de mida fixa sobre un vector de {@code long}.
+ *
+ * <p>La taula té una potència de dos de cubetes, indexades pels bits baixos de
+ * la clau de Zobrist. Cada cubeta té dues entrades de dues paraules (clau
+ * completa per verificar, combinada amb XOR amb les dades, i dades
+ * empaquetades):</p>
+ * <ul>
+ *   <li><b>Entrada 0, preferència de profunditat:</b> només se substitueix per
+ *       una cerca igual o més profunda, o si l'entrada és d'una cerca anterior
+ *       (edat diferent).</li>
+ *   <li><b>Entrada 1, substitució sempre:</b> rep la resta d'escriptures, de
+ *       manera que les posicions recents també hi tenen lloc.</li>
+ * </ul>
+ *
+ * <h3>Format de les dades (64 bits):</h3>
+ * <pre>
+ * bits  0-31  valor (int amb signe)
+ * bits 32-39  profunditat (0..255)
+ * bits 40-41  tipus de cota (EXACTA, INFERIOR, SUPERIOR; 0 = buida)
+ * bits 42-52  millor moviment + 1 (0 = cap)
+ * bits 53-60  edat de la cerca
+ * </pre>
+ *
+ * <p><b>Accés concurrent sense bloquejos:</b> diversos fils de cerca (Lazy
+ * SMP) poden consultar i escriure la mateixa taula. Cada entrada es desa com
+ * {@code (clau ^ dades, dades)}: si dos fils escriuen alhora la mateixa
+ * entrada i les dues paraules queden de escriptures diferents, la
+ * verificació {@code paraula0 ^ paraula1 == clau} falla i la consulta la
+ * tracta com a buida. Es pot perdre alguna escriptura, però mai es llegeixen
+ * dades d'una altra posició. {@link #newSearch()} i {@link #clear()} només
+ * s'han de cridar sense cap cerca en marxa.</p>
+ *
+ * <p>La memòria és constant: es reserva tota en crear la taula i no es crea
+ * cap objecte per consulta ni per escriptura. Les consultes retornen les dades
+ * empaquetades (0 si no hi ha entrada) i es desempaqueten amb els mètodes
+ * estàtics {@link #score}, {@link #depth}, {@link #bound} i {@link #move}.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class TranspositionTable {
+
+    /** Mida per defecte de la taula, en MB. */
+    public static final int MIDA_PER_DEFECTE_MB = 32;
+
+    /** El valor és exacte. */
+    public static final int EXACTA = 1;
+    /** El valor és una cota inferior (hi ha hagut tall beta). */
+    public static final int INFERIOR = 2;
+    /** El valor és una cota superior (cap fill ha superat alpha). */
+    public static final int SUPERIOR = 3;
+
+    /** Bytes per cubeta: dues entrades de clau + dades. */
+    private static final int BYTES_CUBETA = 4 * Long.BYTES;
+
+    private static final int DESP_PROF = 32;
+    private static final int DESP_COTA = 40;
+    private static final int DESP_MOV = 42;
+    private static final int DESP_EDAT = 53;
+    private static final long MASCARA_PROF = 0xFFL;
+    private static final long MASCARA_COTA = 0x3L;
+    private static final long MASCARA_MOV = 0x7FFL;
+    private static final long MASCARA_EDAT = 0xFFL;
+
+    /** Entrades: [clau0 ^ dades0, dades0, clau1 ^ dades1, dades1] per cubeta. */
+    private final long[] entrades;
+    /** Màscara per obtenir l'índex de cubeta a partir de la clau. */
+    private final int mascara;
+    /** Edat de la cerca actual (8 bits). */
+    private int edat;
+
+    /**
+     * Crea una taula de la mida per defecte.
+     */
+    public TranspositionTable() {
+        this(MIDA_PER_DEFECTE_MB);
+    }
+
+    /**
+     * Crea una taula que ocupa com a màxim la memòria indicada. El nombre de
+     * cubetes s'arrodoneix a la potència de dos inferior.
+     *
+     * @param midaMB Memòria en MB (mínim 1)
+     */
+    public TranspositionTable(int midaMB) {
+        long bytes = Math.max(1, midaMB) * 1024L * 1024L;
+        long cubetes = Long.highestOneBit(bytes / BYTES_CUBETA);
+        // El vector de long no pot passar de 2^31 - 1 posicions.
+        cubetes = Math.min(cubetes, 1L << 28);
+        this.entrades = new long[(int) cubetes * 4];
+        this.mascara = (int) cubetes - 1;
+        this.edat = 0;
+    }
+
+    /**
+     * Comença una cerca nova: les entrades anteriors passen a ser
+     * substituïbles, però continuen sent vàlides per a les consultes.
+     */
+    public void newSearch() {
+        edat = (edat + 1) & (int) MASCARA_EDAT;
+    }
+
+    /**
+     * Buida tota la taula.
+     */
+    public void clear() {
+        Arrays.fill(entrades, 0L);
+        edat = 0;
+    }
+
+    /** @return Nombre de cubetes de la taula */
+    public int getBuckets() {
+        return mascara + 1;
+    }
+
+    /**
+     * Busca una posició.
+     *
+     * @param clau Clau de Zobrist de la posició
+     * @return Dades empaquetades de l'entrada, o 0 si no hi és
+     */
+    public long probe(long clau) {
+        int i = ((int) clau & mascara) << 2;
+        // Cada paraula es llegeix una sola vegada: un altre fil la pot canviar
+        long dades = entrades[i + 1];
+        if (dades != 0 && (entrades[i] ^ dades) == clau) {
+            return dades;
+        }
+        dades = entrades[i + 3];
+        if (dades != 0 && (entrades[i + 2] ^ dades) == clau) {
+            return dades;
+        }
+        return 0L;
+    }
+
+    /**
+     * Desa el resultat d'una cerca aplicant la política de substitució.
+     * Si la posició ja hi és i la nova entrada no té millor moviment, es
+     * conserva l'antic. Una entrada duplicada a l'altra posició de la cubeta
+     * no fa mal: la consulta mira primer la de preferència de profunditat.
+     *
+     * @param clau Clau de Zobrist de la posició
+     * @param valor Valor de la cerca
+     * @param profunditat Profunditat restant de la cerca
+     * @param cota {@link #EXACTA}, {@link #INFERIOR} o {@link #SUPERIOR}
+     * @param moviment Millor casella trobada, o -1 si no n'hi ha
+     */
+    public void store(long clau, int valor, int profunditat, int cota, int moviment) {
+        int i = ((int) clau & mascara) << 2;
+        long antic = entrades[i + 1];
+        int slot = antic == 0 || age(antic) != edat || depth(antic) <= profunditat ? i : i + 2;
+        if (moviment < 0) {
+            long dades = probe(clau);
+            if (dades != 0) {
+                moviment = move(dades);
+            }
+        }
+        long dades = empaquetar(valor, profunditat, cota, moviment);
+        entrades[slot + 1] = dades;
+        entrades[slot] = clau ^ dades;
+    }
+
+    /**
+     * Empaqueta les dades d'una entrada.
+     */
+    private long empaquetar(int valor, int profunditat, int cota, int moviment) {
+        return (valor & 0xFFFFFFFFL)
+                | ((long) Math.min(Math.max(profunditat, 0), (int) MASCARA_PROF) << DESP_PROF)
+                | ((long) cota << DESP_COTA)
+                | ((long) (moviment + 1) << DESP_MOV)
+                | ((long) edat << DESP_EDAT);
+    }
+
+    /**
+     * @param dades Dades d'una entrada
+     * @return Valor desat
+     */
+    public static int score(long dades) {
+        return (int) dades;
+    }
+
+    /**
+     * @param dades Dades d'una entrada
+     * @return Profunditat de la cerca que va produir el valor
+     */
+    public static int depth(long dades) {
+        return (int) ((dades >>> DESP_PROF) & MASCARA_PROF);
+    }
+
+    /**
+     * @param dades Dades d'una entrada
+     * @return Tipus de cota ({@link #EXACTA}, {@link #INFERIOR} o {@link #SUPERIOR})
+     */
+    public static int bound(long dades) {
+        return (int) ((dades >>> DESP_COTA) & MASCARA_COTA);
+    }
+
+    /**
+     * @param dades Dades d'una entrada
+     * @return Millor casella desada, o -1 si no n'hi ha
+     */
+    public static int move(long dades) {
+        return (int) ((dades >>> DESP_MOV) & MASCARA_MOV) - 1;
+    }
+
+    /**
+     * @param dades Dades d'una entrada
+     * @return Edat de la cerca que va escriure l'entrada
+     */
+    private static int age(long dades) {
+        return (int) ((dades >>> DESP_EDAT) & MASCARA_EDAT);
+    }
+}
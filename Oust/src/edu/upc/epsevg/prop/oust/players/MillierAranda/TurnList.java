@@ -0,0 +1,204 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import java.util.Arrays;
+
+/**
+ * Llista de torns complets d'un node de la cerca, amb un conjunt de claus per
+ * descartar les posicions repetides.
+ *
+ * <p>Un torn és la seqüència de caselles que col·loca un jugador fins que li
+ * passa el torn. Cadenes de captures diferents (per exemple les mateixes
+ * captures en un altre ordre) poden acabar a la mateixa posició; el conjunt
+ * guarda les claus de Zobrist de les posicions ja vistes dins del node, de
+ * manera que la cerca només n'explora una.</p>
+ *
+ * <p>Com {@link MoveList}, es reutilitza: la cerca en té una per nivell. Els
+ * torns es guarden seguits en un sol {@code int[]} i el conjunt és una taula
+ * d'adreçament obert amb segells, que es buida en O(1) canviant de segell.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class TurnList {
+
+    /** Caselles de tots els torns, una darrere l'altra. */
+    private int[] caselles;
+    /** Posició a {@link #caselles} on comença cada torn (i on acaba l'anterior). */
+    private int[] inici;
+    /** Nombre de torns. */
+    private int size;
+
+    /** Claus del conjunt de posicions vistes. */
+    private long[] claus;
+    /** Segell de cada posició del conjunt; només valen les del segell actual. */
+    private int[] segells;
+    /** Segell actual del conjunt. */
+    private int segell;
+    /** Claus al conjunt amb el segell actual. */
+    private int ocupades;
+
+    /**
+     * Crea una llista buida.
+     *
+     * @param capacitat Capacitat inicial de caselles (normalment el nombre de caselles del tauler)
+     */
+    public TurnList(int capacitat) {
+        this.caselles = new int[Math.max(capacitat, 1) * 2];
+        this.inici = new int[Math.max(capacitat, 1) + 1];
+        this.size = 0;
+        int mida = Integer.highestOneBit(Math.max(capacitat, 16) * 4 - 1) << 1;
+        this.claus = new long[mida];
+        this.segells = new int[mida];
+        this.segell = 1;
+        this.ocupades = 0;
+    }
+
+    /** Buida els torns; el conjunt de posicions vistes es conserva. */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Buida els torns i el conjunt de posicions vistes (node nou). */
+    public void reset() {
+        size = 0;
+        ocupades = 0;
+        if (++segell == 0) {
+            Arrays.fill(segells, 0);
+            segell = 1;
+        }
+    }
+
+    /**
+     * Afegeix una posició al conjunt.
+     *
+     * @param clau Clau de Zobrist
+     * @return true si no hi era (posició nova)
+     */
+    public boolean markVisited(long clau) {
+        if (ocupades * 2 >= claus.length) {
+            creixerConjunt();
+        }
+        int mascara = claus.length - 1;
+        int i = (int) (clau ^ (clau >>> 32)) & mascara;
+        while (segells[i] == segell) {
+            if (claus[i] == clau) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        claus[i] = clau;
+        segells[i] = segell;
+        ocupades++;
+        return true;
+    }
+
+    /**
+     * Afegeix un torn si la posició on acaba no s'ha vist encara al node.
+     *
+     * @param cami Caselles del torn
+     * @param clau Clau de la posició en acabar el torn
+     * @return true si s'ha afegit
+     */
+    public boolean addIfNew(MoveList cami, long clau) {
+        if (!markVisited(clau)) {
+            return false;
+        }
+        add(cami);
+        return true;
+    }
+
+    /**
+     * Afegeix un torn sense comprovar el conjunt.
+     *
+     * @param cami Caselles del torn
+     */
+    public void add(MoveList cami) {
+        if (size + 1 >= inici.length) {
+            inici = Arrays.copyOf(inici, inici.length * 2);
+        }
+        int desde = inici[size];
+        int fins = desde + cami.size();
+        if (fins > caselles.length) {
+            caselles = Arrays.copyOf(caselles, Math.max(caselles.length * 2, fins));
+        }
+        for (int i = 0; i < cami.size(); i++) {
+            caselles[desde + i] = cami.get(i);
+        }
+        inici[++size] = fins;
+    }
+
+    /** @return Nombre de torns */
+    public int size() {
+        return size;
+    }
+
+    /** @return true si no hi ha cap torn */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param t Índex del torn
+     * @return Nombre de caselles del torn
+     */
+    public int length(int t) {
+        return inici[t + 1] - inici[t];
+    }
+
+    /**
+     * @param t Índex del torn
+     * @param i Posició dins del torn
+     * @return Casella i-èsima del torn
+     */
+    public int cell(int t, int i) {
+        return caselles[inici[t] + i];
+    }
+
+    /**
+     * Copia les caselles d'un torn.
+     *
+     * @param t Índex del torn
+     * @param out Llista on escriure-les (es buida abans)
+     */
+    public void copyTo(int t, MoveList out) {
+        out.clear();
+        for (int i = inici[t]; i < inici[t + 1]; i++) {
+            out.add(caselles[i]);
+        }
+    }
+
+    /**
+     * Juga un torn sobre un estat. Per desfer-lo cal desar
+     * {@link GameStatusTunned#getUndoDepth()} abans i cridar
+     * {@link GameStatusTunned#unmakeTo(int)} després.
+     *
+     * @param t Índex del torn
+     * @param estat Estat on jugar-lo
+     */
+    public void apply(int t, GameStatusTunned estat) {
+        for (int i = inici[t]; i < inici[t + 1]; i++) {
+            estat.placeStone(caselles[i]);
+        }
+    }
+
+    /**
+     * Dobla la taula del conjunt i hi torna a posar les claus vigents.
+     */
+    private void creixerConjunt() {
+        long[] clausAntigues = claus;
+        int[] segellsAntics = segells;
+        int segellAntic = segell;
+        claus = new long[clausAntigues.length * 2];
+        segells = new int[clausAntigues.length * 2];
+        segell = 1;
+        ocupades = 0;
+        for (int i = 0; i < clausAntigues.length; i++) {
+            if (segellsAntics[i] == segellAntic) {
+                markVisited(clausAntigues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package edu.upc.epsevg.prop.oust.players.MillierAranda;
+
+import java.util.Arrays;
+
+/**
+ * Claus aleatòries de 64 bits per al hashing de Zobrist de les posicions.
+ *
+ * <p>La clau d'una posició és la XOR de la clau de cada pedra (casella i color)
+ * més la clau de torn quan li toca a PLAYER2. Com que la XOR és reversible,
+ * {@link BitboardPosition} la manté incrementalment: cada pedra posada o
+ * capturada i cada canvi de torn costa una sola operació.</p>
+ *
+ * <p>Les claus es generen amb una funció de dispersió (SplitMix64) de l'índex
+ * de la clau i una llavor fixa, de manera que són les mateixes a totes les
+ * execucions (útil per comparar registres i taules) i no depenen de l'ordre
+ * en què es demanen. La taula de claus de pedra creix sota demanda fins a la
+ * mida del tauler més gran que s'hagi fet servir, sense cap límit de mida.</p>
+ *
+ * @author Erik Millier, Alex Aranda
+ */
+public final class Zobrist {
+
+    /** Llavor de les claus. */
+    private static final long LLAVOR = 0x4F757374L;
+    /** Increment de SplitMix64 (part fraccionària de la raó àuria). */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Clau que s'afegeix quan el torn és de PLAYER2 (índex -1, fora de les pedres). */
+    public static final long TORN = barrejar(LLAVOR - GAMMA);
+
+    /**
+     * Claus per pedra: [casella * 2 + color]. Només creix, i les claus que ja
+     * hi són no canvien mai; es substitueix sencera, de manera que un vector
+     * retornat per {@link #keys(int)} no es modifica després.
+     */
+    private static long[] pedres = new long[0];
+
+    private Zobrist() {
+    }
+
+    /**
+     * Claus de pedra per a un tauler. El vector es comparteix i no s'ha de
+     * modificar; la clau de la pedra de color {@code c} a {@code cell} és
+     * {@code keys[cell * 2 + c]}.
+     *
+     * @param numCells Nombre de caselles del tauler
+     * @return Vector amb almenys {@code 2 * numCells} claus
+     */
+    public static synchronized long[] keys(int numCells) {
+        int necessaries = 2 * numCells;
+        if (pedres.length < necessaries) {
+            long[] noves = Arrays.copyOf(pedres, necessaries);
+            for (int i = pedres.length; i < necessaries; i++) {
+                noves[i] = barrejar(LLAVOR + i * GAMMA);
+            }
+            pedres = noves;
+        }
+        return pedres;
+    }
+
+    /**
+     * Funció de barreja de SplitMix64.
+     */
+    private static long barrejar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}